@@ -1,7 +1,7 @@
 package explorer.model;
 
 import explorer.model.treetools.ConceptNode;
-import explorer.model.treetools.TreeUtils;
+import explorer.model.treetools.TreeTraversal;
 import javafx.geometry.Point2D;
 
 import java.util.HashMap;
@@ -25,40 +25,23 @@ public class Cladogram {
     public static Map<ConceptNode, Point2D> layoutUniformEdgeLength(ConceptNode root) {
         Map<ConceptNode, Point2D> result = new HashMap<>();
 
-        // First postOrderTraversal for y coord calculation
+        // single post-order pass: y from the leaf order (children are placed before their parent),
+        // x directly from the depth of the node (root starts at 0)
         int[] leavesVisited = {0}; // Mutable counter using an array
-        TreeUtils.postOrderTraversal(root, node -> {
+        TreeTraversal.traverse(root, TreeTraversal.Order.POST_ORDER, (node, depth) -> {
             if (node.isLeaf()) {
-                result.put(node, new Point2D(0, leavesVisited[0]));
+                result.put(node, new Point2D(depth, leavesVisited[0]));
                 leavesVisited[0]++;
             } else {
                 double y = computeYEqualLeafDepth(node, result);
-                result.put(node, new Point2D(-1, y)); // x will be set in second pass
+                result.put(node, new Point2D(depth, y));
             }
+            return true;
         });
 
-        // Second pass: set x-coordinates by depth
-        setXCoordinatesByDepth(root, 0, result);
-
         return result;
     }
 
-    /**
-     * Assigns x-coordinates to each node in the tree based on their depth.
-     * The deeper a node is in the tree, the greater its x-coordinate.
-     * The y-coordinate remains unchanged.
-     *
-     * @param node the current node being processed
-     * @param depth the depth of the current node (root starts at 0)
-     * @param result the mapping from nodes to their current (x, y) positions
-     */
-    private static void setXCoordinatesByDepth(ConceptNode node, int depth, Map<ConceptNode, Point2D> result) {
-        result.computeIfPresent(node, (k, oldPoint) -> new Point2D(depth, oldPoint.getY()));
-        for (ConceptNode child : node.getChildren()) {
-            setXCoordinatesByDepth(child, depth + 1, result);
-        }
-    }
-
     /**
      * Computes the average y-coordinate of all child nodes of the given node.
      * This assumes that the provided map contains the y-coordinates for all child nodes of the given node.
@@ -0,0 +1,273 @@
+package explorer.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of non-negative int indices (e.g. mesh indices, see {@link SymbolTable#FILE_IDS}).
+ * <p>
+ * Small sets are stored as a sorted int array, large sets as a plain bitmap of 64 bit words.
+ * The cheaper representation is chosen automatically: a sorted array costs 32 bit per element,
+ * a bitmap 64 bit per word up to the largest element. Set operations work on both representations
+ * and return a freshly compacted set.
+ * </p>
+ * Mutable accumulation is done with a {@link Builder}.
+ */
+public final class CompactBitSet {
+
+    /** The set without any elements. */
+    public static final CompactBitSet EMPTY = new CompactBitSet(new int[0], null, 0);
+
+    // exactly one of both is non-null
+    private final int[] sorted;
+    private final long[] words;
+    private final int cardinality;
+
+    private CompactBitSet(int[] sorted, long[] words, int cardinality) {
+        this.sorted = sorted;
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * @param indices the elements of the set, in any order, duplicates are ignored
+     * @return the set of the given indices
+     * @throws IllegalArgumentException if an index is negative
+     */
+    public static CompactBitSet of(int... indices) {
+        Builder builder = new Builder();
+        for (int index : indices) builder.add(index);
+        return builder.build();
+    }
+
+    /**
+     * @return the number of elements in the set
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * @return true if the set has no elements
+     */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * @param index the index to check
+     * @return true if the index is an element of the set
+     */
+    public boolean contains(int index) {
+        if (index < 0) return false;
+        if (sorted != null) return Arrays.binarySearch(sorted, index) >= 0;
+        int word = index >>> 6;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * Calls the consumer for every element in ascending order.
+     *
+     * @param consumer called with every element
+     */
+    public void forEach(IntConsumer consumer) {
+        if (sorted != null) {
+            for (int index : sorted) consumer.accept(index);
+            return;
+        }
+        for (int word = 0; word < words.length; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                consumer.accept((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * @return all elements in ascending order
+     */
+    public int[] toArray() {
+        if (sorted != null) return sorted.clone();
+        int[] result = new int[cardinality];
+        int[] position = {0};
+        forEach(index -> result[position[0]++] = index);
+        return result;
+    }
+
+    /**
+     * @param other another set
+     * @return the set of all elements contained in this or the other set
+     */
+    public CompactBitSet or(CompactBitSet other) {
+        if (other.isEmpty()) return this;
+        if (isEmpty()) return other;
+        long[] result = Arrays.copyOf(toWords(), Math.max(wordCount(), other.wordCount()));
+        other.orInto(result);
+        return fromWords(result);
+    }
+
+    /**
+     * @param other another set
+     * @return the set of all elements contained in both sets
+     */
+    public CompactBitSet and(CompactBitSet other) {
+        if (isEmpty() || other.isEmpty()) return EMPTY;
+        // iterate the sparse side, probe the other one
+        if (sorted != null || other.sorted != null) {
+            CompactBitSet small = sorted != null ? this : other;
+            CompactBitSet large = small == this ? other : this;
+            int[] result = new int[small.cardinality];
+            int size = 0;
+            for (int index : small.sorted) {
+                if (large.contains(index)) result[size++] = index;
+            }
+            return fromSorted(Arrays.copyOf(result, size));
+        }
+        long[] result = new long[Math.min(words.length, other.words.length)];
+        for (int i = 0; i < result.length; i++) result[i] = words[i] & other.words[i];
+        return fromWords(result);
+    }
+
+    /**
+     * @param other another set
+     * @return the set of all elements of this set that are not contained in the other set
+     */
+    public CompactBitSet andNot(CompactBitSet other) {
+        if (isEmpty() || other.isEmpty()) return this;
+        if (sorted != null) {
+            int[] result = new int[cardinality];
+            int size = 0;
+            for (int index : sorted) {
+                if (!other.contains(index)) result[size++] = index;
+            }
+            return size == cardinality ? this : fromSorted(Arrays.copyOf(result, size));
+        }
+        long[] result = words.clone();
+        long[] otherWords = other.toWords();
+        for (int i = 0; i < Math.min(result.length, otherWords.length); i++) result[i] &= ~otherWords[i];
+        return fromWords(result);
+    }
+
+    /**
+     * @return the number of 64 bit words needed to store the largest element as a bitmap
+     */
+    private int wordCount() {
+        if (words != null) return words.length;
+        return sorted.length == 0 ? 0 : (sorted[sorted.length - 1] >>> 6) + 1;
+    }
+
+    /**
+     * @return the set as bitmap, the internal array for bitmap sets (must not be modified)
+     */
+    private long[] toWords() {
+        if (words != null) return words;
+        long[] result = new long[wordCount()];
+        orInto(result);
+        return result;
+    }
+
+    /**
+     * Sets the bits of all elements in the given bitmap, which has to be large enough.
+     */
+    private void orInto(long[] target) {
+        if (sorted != null) {
+            for (int index : sorted) target[index >>> 6] |= 1L << index;
+        } else {
+            for (int i = 0; i < words.length; i++) target[i] |= words[i];
+        }
+    }
+
+    /**
+     * Creates a set of the given sorted, duplicate free elements in the cheaper representation.
+     */
+    private static CompactBitSet fromSorted(int[] sorted) {
+        if (sorted.length == 0) return EMPTY;
+        int wordCount = (sorted[sorted.length - 1] >>> 6) + 1;
+        if (sorted.length < 2 * wordCount) return new CompactBitSet(sorted, null, sorted.length);
+        long[] words = new long[wordCount];
+        for (int index : sorted) words[index >>> 6] |= 1L << index;
+        return new CompactBitSet(null, words, sorted.length);
+    }
+
+    /**
+     * Creates a set of the given bitmap (taking ownership of the array) in the cheaper representation.
+     */
+    private static CompactBitSet fromWords(long[] words) {
+        int wordCount = words.length;
+        while (wordCount > 0 && words[wordCount - 1] == 0) wordCount--;
+        int cardinality = 0;
+        for (int i = 0; i < wordCount; i++) cardinality += Long.bitCount(words[i]);
+        if (cardinality == 0) return EMPTY;
+
+        CompactBitSet dense = new CompactBitSet(null, wordCount == words.length ? words : Arrays.copyOf(words, wordCount),
+                cardinality);
+        if (cardinality >= 2 * wordCount) return dense;
+        return new CompactBitSet(dense.toArray(), null, cardinality);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactBitSet other) || cardinality != other.cardinality) return false;
+        return Arrays.equals(toWords(), other.toWords());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toWords());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * Mutable accumulator for a CompactBitSet, backed by a growing bitmap. Not thread-safe.
+     */
+    public static final class Builder {
+        private long[] words = new long[4];
+
+        /**
+         * @param index the index to add, must not be negative
+         * @return this builder
+         */
+        public Builder add(int index) {
+            if (index < 0) throw new IllegalArgumentException("Index must not be negative: " + index);
+            ensureWords((index >>> 6) + 1);
+            words[index >>> 6] |= 1L << index;
+            return this;
+        }
+
+        /**
+         * @param indices the indices to add, none of them must be negative
+         * @return this builder
+         */
+        public Builder addAll(int[] indices) {
+            for (int index : indices) add(index);
+            return this;
+        }
+
+        /**
+         * @param set the set whose elements to add
+         * @return this builder
+         */
+        public Builder addAll(CompactBitSet set) {
+            ensureWords(set.wordCount());
+            set.orInto(words);
+            return this;
+        }
+
+        /**
+         * @return an immutable set of all indices added so far, the builder stays usable
+         */
+        public CompactBitSet build() {
+            return fromWords(words.clone());
+        }
+
+        private void ensureWords(int wordCount) {
+            if (wordCount > words.length) words = Arrays.copyOf(words, Math.max(words.length * 2, wordCount));
+        }
+    }
+}
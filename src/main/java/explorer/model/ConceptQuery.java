@@ -0,0 +1,349 @@
+package explorer.model;
+
+import explorer.model.treetools.ConceptNode;
+import explorer.model.treetools.TreeIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Parsed set-algebra query over the meshes of concepts, e.g. "everything in the partOf 'head' subtree that is-a
+ * 'muscle organ', minus what is already hidden":
+ * <pre>
+ *   subtree(partOf:"head") &amp; subtree(isA:"muscle organ") - hidden
+ * </pre>
+ * Grammar, keywords are case-insensitive and {@code &} binds stronger than {@code |} and {@code -}:
+ * <pre>
+ *   query     := term (('|' | 'or' | '-' | 'minus') term)*
+ *   term      := factor (('&amp;' | 'and') factor)*
+ *   factor    := '(' query ')' | ('subtree' | 'leaves') '(' reference ')' | reference
+ *   reference := [tree ':'] (identifier | 'quoted name' | "quoted name")
+ * </pre>
+ * <p>
+ * A quoted reference names concepts by their name (case-insensitive), an identifier is a concept ID, a concept
+ * name without spaces or, without tree, a named mesh set of the {@link Environment} (e.g. {@code hidden}).
+ * Without tree, a concept is looked up in all trees of the environment. A reference stands for the meshes of
+ * all matching concepts, {@code subtree} for the meshes of their whole subtrees and {@code leaves} for the
+ * meshes of the leaves of their subtrees.
+ * </p>
+ * Every value is a set of mesh indices (see {@link SymbolTable#FILE_IDS}), so evaluating a query is a handful of
+ * {@link CompactBitSet} operations on the precomputed subtree mesh sets of the {@link TreeIndex}.
+ */
+public final class ConceptQuery {
+
+    /**
+     * Meshes a reference stands for.
+     */
+    private enum Scope { CONCEPT, SUBTREE, LEAVES }
+
+    /**
+     * Node of the parsed query.
+     */
+    private sealed interface Expression permits Operation, Reference {}
+
+    private record Operation(char operator, Expression left, Expression right) implements Expression {}
+
+    private record Reference(String tree, String key, boolean quoted, Scope scope) implements Expression {}
+
+    private final String text;
+    private final Expression expression;
+
+    private ConceptQuery(String text, Expression expression) {
+        this.text = text;
+        this.expression = expression;
+    }
+
+    /**
+     * Parses a query, see the class documentation for the grammar.
+     *
+     * @param text the query
+     * @return the parsed query, which can be evaluated repeatedly
+     * @throws IllegalArgumentException if the query is not valid
+     */
+    public static ConceptQuery parse(String text) {
+        return new ConceptQuery(text, new Parser(text).parse());
+    }
+
+    /**
+     * Evaluates the query.
+     *
+     * @param environment the trees and named mesh sets the query refers to
+     * @return the mesh indices of the query result
+     * @throws IllegalArgumentException if the query refers to an unknown tree or concept
+     */
+    public CompactBitSet evaluate(Environment environment) {
+        return evaluate(expression, environment);
+    }
+
+    private static CompactBitSet evaluate(Expression expression, Environment environment) {
+        return switch (expression) {
+            case Reference reference -> environment.meshesOf(reference);
+            case Operation(char operator, Expression left, Expression right) -> {
+                CompactBitSet leftMeshes = evaluate(left, environment);
+                CompactBitSet rightMeshes = evaluate(right, environment);
+                yield switch (operator) {
+                    case '|' -> leftMeshes.or(rightMeshes);
+                    case '&' -> leftMeshes.and(rightMeshes);
+                    default -> leftMeshes.andNot(rightMeshes);
+                };
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * The trees and named mesh sets a query is evaluated against. Tree and set names are case-insensitive.
+     */
+    public static final class Environment {
+
+        // root -> name and ID lookup of the tree, built on first use and shared, like the TreeIndex itself
+        private static final Map<TreeIndex, ConceptLookup> lookups = Collections.synchronizedMap(new WeakHashMap<>());
+
+        private final Map<String, TreeIndex> trees = new LinkedHashMap<>();
+        private final Map<String, CompactBitSet> sets = new HashMap<>();
+
+        /**
+         * @param name the name the query uses for the tree, e.g. "isA"
+         * @param tree the index of the tree
+         * @return this environment
+         */
+        public Environment addTree(String name, TreeIndex tree) {
+            trees.put(name.toLowerCase(Locale.ROOT), tree);
+            return this;
+        }
+
+        /**
+         * @param name the name the query uses for the set, e.g. "hidden"
+         * @param meshes the mesh indices of the set
+         * @return this environment
+         */
+        public Environment addSet(String name, CompactBitSet meshes) {
+            sets.put(name.toLowerCase(Locale.ROOT), meshes);
+            return this;
+        }
+
+        private CompactBitSet meshesOf(Reference reference) {
+            if (reference.tree() == null && !reference.quoted() && reference.scope() == Scope.CONCEPT) {
+                CompactBitSet set = sets.get(reference.key().toLowerCase(Locale.ROOT));
+                if (set != null) return set;
+            }
+
+            Collection<TreeIndex> searched = trees.values();
+            if (reference.tree() != null) {
+                TreeIndex tree = trees.get(reference.tree().toLowerCase(Locale.ROOT));
+                if (tree == null) throw new IllegalArgumentException("Unknown tree: " + reference.tree());
+                searched = List.of(tree);
+            }
+
+            CompactBitSet.Builder meshes = new CompactBitSet.Builder();
+            boolean found = false;
+            for (TreeIndex tree : searched) {
+                ConceptLookup lookup;
+                synchronized (lookups) {
+                    lookup = lookups.computeIfAbsent(tree, ConceptLookup::new);
+                }
+                for (int node : lookup.find(reference.key(), reference.quoted())) {
+                    found = true;
+                    switch (reference.scope()) {
+                        case CONCEPT -> meshes.addAll(tree.node(node).getFileIndices());
+                        case SUBTREE -> meshes.addAll(tree.subtreeMeshes(node));
+                        case LEAVES -> {
+                            for (int i = node; i < node + tree.subtreeSize(node); i++) {
+                                if (tree.node(i).isLeaf()) meshes.addAll(tree.node(i).getFileIndices());
+                            }
+                        }
+                    }
+                }
+            }
+            if (!found) throw new IllegalArgumentException("Unknown concept: " + reference.key());
+            return meshes.build();
+        }
+    }
+
+    /**
+     * Pre-order numbers of the nodes of one tree by concept ID and by lower case name.
+     * A concept can occur several times in a tree, e.g. below several parents.
+     */
+    private static final class ConceptLookup {
+        private final Map<String, int[]> byID = new HashMap<>();
+        private final Map<String, int[]> byName = new HashMap<>();
+
+        private ConceptLookup(TreeIndex tree) {
+            for (int node = 0; node < tree.size(); node++) {
+                ConceptNode concept = tree.node(node);
+                if (concept.getConceptID() != null) add(byID, concept.getConceptID(), node);
+                if (concept.getName() != null) add(byName, concept.getName().toLowerCase(Locale.ROOT), node);
+            }
+        }
+
+        private static void add(Map<String, int[]> map, String key, int node) {
+            int[] nodes = map.get(key);
+            if (nodes == null) {
+                map.put(key, new int[]{node});
+            } else {
+                nodes = Arrays.copyOf(nodes, nodes.length + 1);
+                nodes[nodes.length - 1] = node;
+                map.put(key, nodes);
+            }
+        }
+
+        /**
+         * @return the nodes with the given name, or for an identifier with the given ID or name
+         */
+        private int[] find(String key, boolean quoted) {
+            int[] nodes = quoted ? null : byID.get(key);
+            if (nodes == null) nodes = byName.get(key.toLowerCase(Locale.ROOT));
+            return nodes == null ? new int[0] : nodes;
+        }
+    }
+
+    /**
+     * Recursive descent parser over a list of tokens.
+     */
+    private static final class Parser {
+
+        /**
+         * Token of the query: a symbol ({@code ( ) | & - :}), an identifier or a quoted name.
+         */
+        private record Token(String text, boolean quoted, int position) {
+            private boolean is(String symbol) {
+                return !quoted && text.equalsIgnoreCase(symbol);
+            }
+        }
+
+        private final List<Token> tokens;
+        private int next = 0;
+
+        private Parser(String text) {
+            this.tokens = tokenize(text);
+        }
+
+        private static List<Token> tokenize(String text) {
+            List<Token> tokens = new ArrayList<>();
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if ("()|&-:".indexOf(c) >= 0) {
+                    tokens.add(new Token(String.valueOf(c), false, i++));
+                } else if (c == '"' || c == '\'') {
+                    int end = text.indexOf(c, i + 1);
+                    if (end < 0) throw error(i, "unterminated quoted name");
+                    tokens.add(new Token(text.substring(i + 1, end), true, i));
+                    i = end + 1;
+                } else if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                    int start = i;
+                    while (i < text.length() && (Character.isLetterOrDigit(text.charAt(i))
+                            || text.charAt(i) == '_' || text.charAt(i) == '.')) {
+                        i++;
+                    }
+                    tokens.add(new Token(text.substring(start, i), false, start));
+                } else {
+                    throw error(i, "unexpected '" + c + "'");
+                }
+            }
+            return tokens;
+        }
+
+        private Expression parse() {
+            if (tokens.isEmpty()) throw error(0, "empty query");
+            Expression expression = query();
+            if (next < tokens.size()) throw error(peek().position(), "unexpected '" + peek().text() + "'");
+            return expression;
+        }
+
+        private Expression query() {
+            Expression expression = term();
+            while (next < tokens.size()) {
+                if (accept("|") || accept("or")) {
+                    expression = new Operation('|', expression, term());
+                } else if (accept("-") || accept("minus")) {
+                    expression = new Operation('-', expression, term());
+                } else {
+                    break;
+                }
+            }
+            return expression;
+        }
+
+        private Expression term() {
+            Expression expression = factor();
+            while (accept("&") || accept("and")) {
+                expression = new Operation('&', expression, factor());
+            }
+            return expression;
+        }
+
+        private Expression factor() {
+            if (accept("(")) {
+                Expression expression = query();
+                expect(")");
+                return expression;
+            }
+            for (Scope scope : new Scope[]{Scope.SUBTREE, Scope.LEAVES}) {
+                if (peekIs(scope.name(), 0) && peekIs("(", 1)) {
+                    next += 2;
+                    Expression reference = reference(scope);
+                    expect(")");
+                    return reference;
+                }
+            }
+            return reference(Scope.CONCEPT);
+        }
+
+        private Reference reference(Scope scope) {
+            String tree = null;
+            if (peekIs(":", 1) && !peek().quoted()) {
+                tree = take().text();
+                next++;
+            }
+            Token key = take();
+            if (!key.quoted() && "()|&-:".contains(key.text())) {
+                throw error(key.position(), "expected a concept but found '" + key.text() + "'");
+            }
+            return new Reference(tree, key.text(), key.quoted(), scope);
+        }
+
+        private Token peek() {
+            return tokens.get(next);
+        }
+
+        private boolean peekIs(String symbol, int offset) {
+            return next + offset < tokens.size() && tokens.get(next + offset).is(symbol);
+        }
+
+        private Token take() {
+            if (next >= tokens.size()) throw error(-1, "unexpected end of query");
+            return tokens.get(next++);
+        }
+
+        private boolean accept(String symbol) {
+            if (!peekIs(symbol, 0)) return false;
+            next++;
+            return true;
+        }
+
+        private void expect(String symbol) {
+            if (next >= tokens.size()) throw error(-1, "missing '" + symbol + "'");
+            if (!accept(symbol)) throw error(peek().position(), "expected '" + symbol + "'");
+        }
+
+        private static IllegalArgumentException error(int position, String message) {
+            return new IllegalArgumentException(position < 0 ? "Invalid query: " + message
+                    : "Invalid query at character " + position + ": " + message);
+        }
+    }
+}
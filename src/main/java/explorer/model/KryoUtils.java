@@ -5,6 +5,8 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import explorer.model.treetools.ConceptNode;
+import explorer.model.treetools.LazyTreeFormat;
+import explorer.model.treetools.TreeUtils;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
 import java.io.*;
@@ -12,7 +14,8 @@ import java.util.*;
 
 public class KryoUtils {
 
-    private static final Map<String, Object> cache = new HashMap<>();
+    // all thawed resources are shared through this cache -> every resource is deserialized only once
+    private static final ResourceCache cache = new ResourceCache(16);
 
     /**
      * Creates a new Kryo instance and registers the provided classes.
@@ -82,13 +85,59 @@ public class KryoUtils {
     }
 
     /**
-     * Deserializes a ConceptNode tree from the specified Kryo resource.
+     * Deserializes a ConceptNode tree from the specified Kryo resource, with caching.
+     * The returned tree is the same object on every call, shared between all callers, and must not be modified.
+     * All concept and file IDs of the tree are interned into the global {@link SymbolTable}s.
      *
      * @param resourcePath The resource path of the Kryo file (relative to classpath).
      * @return The deserialized ConceptNode tree, or null if deserialization fails.
      */
     public static ConceptNode thawTreeFromKryo(String resourcePath) {
-        return thawObject(resourcePath, ConceptNode.class, ConceptNode.class, ArrayList.class, String.class);
+        return cache.getPinned(resourcePath, ConceptNode.class, () -> {
+            ConceptNode root = thawObject(resourcePath, ConceptNode.class,
+                                          ConceptNode.class, ArrayList.class, String.class);
+            if (root != null) TreeUtils.postOrderTraversal(root, ConceptNode::internSymbols);
+            return root;
+        });
+    }
+
+    /**
+     * Serializes a ConceptNode tree in the lazily loadable layout (see {@link LazyTreeFormat})
+     * to the specified file path.
+     *
+     * @param tree       The ConceptNode tree to serialize.
+     * @param saveToPath The path to save the serialized tree.
+     */
+    public static void freezeLazyTree(ConceptNode tree, String saveToPath) {
+        try (OutputStream output = new FileOutputStream(saveToPath)) {
+            LazyTreeFormat.write(tree, output);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Deserializes a ConceptNode tree written by {@link #freezeLazyTree(ConceptNode, String)}, with caching.
+     * Only the root is decoded immediately, the children of each node are decoded on their first access.
+     * Use {@link ConceptNode#loadSubtree()} to force a full load.
+     * The returned tree is the same object on every call, shared between all callers, and must not be modified.
+     *
+     * @param resourcePath The resource path of the lazy tree file (relative to classpath).
+     * @return The lazily loaded ConceptNode tree, or null if the resource is missing or invalid.
+     */
+    public static ConceptNode thawLazyTree(String resourcePath) {
+        return cache.getPinned(resourcePath, ConceptNode.class, () -> {
+            try (InputStream stream = KryoUtils.class.getResourceAsStream(resourcePath)) {
+                if (stream == null) {
+                    System.err.println("Resource not found: " + resourcePath);
+                    return null;
+                }
+                return LazyTreeFormat.read(stream.readAllBytes());
+            } catch (IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
     }
 
     /**
@@ -107,12 +156,10 @@ public class KryoUtils {
      * @param resourcePath The resource path of the Kryo file (relative to classpath).
      * @return The deserialized map, or null if deserialization fails.
      */
+    @SuppressWarnings("unchecked")
     public static Map<Integer, Double> thawIntegerMapFromKryo(String resourcePath) {
-        // Uses cache to avoid redundant deserialization
-        if (cache.containsKey(resourcePath)) return (Map<Integer, Double>) cache.get(resourcePath);
-        Map<Integer, Double> map = thawObject(resourcePath, HashMap.class, HashMap.class, Double.class, Integer.class);
-        cache.put(resourcePath, map);
-        return map;
+        return cache.get(resourcePath, Map.class, () ->
+                thawObject(resourcePath, HashMap.class, HashMap.class, Double.class, Integer.class));
     }
 
     /**
@@ -138,12 +185,21 @@ public class KryoUtils {
     }
 
     /**
-     * Deserializes a Map<String, List<String>> from the specified Kryo resource.
+     * Deserializes a Map<String, List<String>> from the specified Kryo resource, with caching.
      *
      * @param resourcePath The resource path of the Kryo file (relative to classpath).
      * @return The deserialized map, or null if deserialization fails.
      */
+    @SuppressWarnings("unchecked")
     public static Map<String, List<String>> thawStringMapFromKryo(String resourcePath) {
-        return thawObject(resourcePath, LinkedHashMap.class, LinkedHashMap.class, ArrayList.class, String.class);
+        return cache.get(resourcePath, Map.class, () ->
+                thawObject(resourcePath, LinkedHashMap.class, LinkedHashMap.class, ArrayList.class, String.class));
+    }
+
+    /**
+     * @return the hit / miss / load time statistics of the cache all thawed resources go through
+     */
+    public static ResourceCache.Stats getCacheStats() {
+        return cache.getStats();
     }
 }
\ No newline at end of file
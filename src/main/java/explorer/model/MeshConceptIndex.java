@@ -0,0 +1,173 @@
+package explorer.model;
+
+import explorer.model.treetools.ConceptNode;
+import explorer.model.treetools.TreeIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Immutable inverted index from meshes to the concept nodes they are associated with, over several ontologies
+ * (the isA and the partOf tree).
+ * <p>
+ * Meshes are addressed by their index in {@link SymbolTable#FILE_IDS}, concept nodes by their pre-order number
+ * in the {@link TreeIndex} of their tree, trees by their position in the list passed to {@link #build(List)}.
+ * For every tree the postings are stored in one flat int array (compressed sparse rows): the postings of a mesh
+ * are a contiguous range, with the leaves of the tree first and the internal nodes afterward.
+ * </p>
+ * The index is built once after all meshes are loaded and can be shared between threads afterward.
+ */
+public final class MeshConceptIndex {
+
+    private final TreeIndex[] trees;
+    private final int meshCount;
+
+    // [tree][mesh] start of the postings of the mesh, [tree][meshCount] is the total number of postings
+    private final int[][] offsets;
+    // [tree][mesh] end of the leaf postings of the mesh (the internal node postings follow up to the next offset)
+    private final int[][] leafEnds;
+    // [tree] pre-order numbers of all postings
+    private final int[][] postings;
+
+    private MeshConceptIndex(TreeIndex[] trees, int meshCount, int[][] offsets, int[][] leafEnds, int[][] postings) {
+        this.trees = trees;
+        this.meshCount = meshCount;
+        this.offsets = offsets;
+        this.leafEnds = leafEnds;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds the index over the given trees. All meshes of the trees have to be interned already.
+     * Each tree is scanned twice: once to count the postings per mesh, once to fill them in.
+     *
+     * @param trees the indices of the trees to cover
+     * @return the inverted index
+     */
+    public static MeshConceptIndex build(List<TreeIndex> trees) {
+        int meshCount = SymbolTable.FILE_IDS.size();
+        int[][] offsets = new int[trees.size()][];
+        int[][] leafEnds = new int[trees.size()][];
+        int[][] postings = new int[trees.size()][];
+
+        for (int t = 0; t < trees.size(); t++) {
+            TreeIndex tree = trees.get(t);
+
+            // count leaf and internal postings per mesh
+            int[] leafCounts = new int[meshCount];
+            int[] internalCounts = new int[meshCount];
+            for (int node = 0; node < tree.size(); node++) {
+                int[] counts = tree.node(node).isLeaf() ? leafCounts : internalCounts;
+                for (int mesh : distinctMeshes(tree.node(node))) {
+                    if (mesh < meshCount) counts[mesh]++;
+                }
+            }
+
+            int[] treeOffsets = new int[meshCount + 1];
+            int[] treeLeafEnds = new int[meshCount];
+            for (int mesh = 0; mesh < meshCount; mesh++) {
+                treeLeafEnds[mesh] = treeOffsets[mesh] + leafCounts[mesh];
+                treeOffsets[mesh + 1] = treeLeafEnds[mesh] + internalCounts[mesh];
+            }
+
+            // fill in, leaves from the start of the range, internal nodes from the end of the leaves
+            int[] treePostings = new int[treeOffsets[meshCount]];
+            int[] nextLeaf = Arrays.copyOf(treeOffsets, meshCount);
+            int[] nextInternal = treeLeafEnds.clone();
+            for (int node = 0; node < tree.size(); node++) {
+                int[] next = tree.node(node).isLeaf() ? nextLeaf : nextInternal;
+                for (int mesh : distinctMeshes(tree.node(node))) {
+                    if (mesh < meshCount) treePostings[next[mesh]++] = node;
+                }
+            }
+
+            offsets[t] = treeOffsets;
+            leafEnds[t] = treeLeafEnds;
+            postings[t] = treePostings;
+        }
+        return new MeshConceptIndex(trees.toArray(new TreeIndex[0]), meshCount, offsets, leafEnds, postings);
+    }
+
+    /**
+     * @return the mesh indices of the node without duplicates
+     */
+    private static int[] distinctMeshes(ConceptNode node) {
+        return Arrays.stream(node.getFileIndices()).distinct().toArray();
+    }
+
+    /**
+     * @return the number of covered trees
+     */
+    public int treeCount() {
+        return trees.length;
+    }
+
+    /**
+     * @param tree position of the tree
+     * @return the TreeIndex of the tree
+     */
+    public TreeIndex tree(int tree) {
+        return trees[tree];
+    }
+
+    /**
+     * @param root the root of a tree
+     * @return the position of the tree with the given root, -1 if the tree is not covered
+     */
+    public int treeOf(ConceptNode root) {
+        for (int t = 0; t < trees.length; t++) {
+            if (trees[t].getRoot() == root) return t;
+        }
+        return -1;
+    }
+
+    /**
+     * @param tree position of the tree
+     * @param mesh the mesh index
+     * @return pre-order numbers of the leaves associated with the mesh, ascending
+     */
+    public int[] leavesOf(int tree, int mesh) {
+        if (mesh < 0 || mesh >= meshCount) return new int[0];
+        return Arrays.copyOfRange(postings[tree], offsets[tree][mesh], leafEnds[tree][mesh]);
+    }
+
+    /**
+     * @param tree position of the tree
+     * @param mesh the mesh index
+     * @return pre-order numbers of the internal nodes associated with the mesh, ascending
+     */
+    public int[] internalNodesOf(int tree, int mesh) {
+        if (mesh < 0 || mesh >= meshCount) return new int[0];
+        return Arrays.copyOfRange(postings[tree], leafEnds[tree][mesh], offsets[tree][mesh + 1]);
+    }
+
+    /**
+     * @param tree position of the tree
+     * @param mesh the mesh index
+     * @return pre-order numbers of all nodes associated with the mesh, leaves first
+     */
+    public int[] nodesOf(int tree, int mesh) {
+        if (mesh < 0 || mesh >= meshCount) return new int[0];
+        return Arrays.copyOfRange(postings[tree], offsets[tree][mesh], offsets[tree][mesh + 1]);
+    }
+
+    /**
+     * Returns the names of all leaf concepts of all trees that are associated with the mesh.
+     * Meshes are interpreted as leaf concepts, internal nodes only aggregate them.
+     *
+     * @param mesh the mesh index
+     * @return the distinct names, in tree order and pre-order within a tree
+     */
+    public List<String> leafNamesOf(int mesh) {
+        if (mesh < 0 || mesh >= meshCount) return List.of();
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        for (int t = 0; t < trees.length; t++) {
+            for (int posting = offsets[t][mesh]; posting < leafEnds[t][mesh]; posting++) {
+                names.add(trees[t].node(postings[t][posting]).getName());
+            }
+        }
+        return new ArrayList<>(names);
+    }
+}
@@ -0,0 +1,242 @@
+package explorer.model;
+
+import explorer.apptools.AppLogger;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Thread-safe, bounded cache for expensive to load resources (e.g. thawed Kryo files).
+ * <p>
+ * Each key is loaded at most once even if several threads request it concurrently:
+ * the first caller runs the loader, all other callers wait for that very load to finish.
+ * The cache holds at most {@code maxEntries} resources and evicts the least recently used one
+ * if that bound is exceeded. Values are only referenced softly, so the garbage collector may
+ * additionally drop them under memory pressure - they are transparently reloaded on the next request.
+ * </p>
+ * <p>
+ * Resources whose identity matters, e.g. trees that key per-tree caches by identity, are pinned instead
+ * ({@link #getPinned(String, Class, Supplier)}): they are held strongly and never evicted, so every request
+ * returns the very same object until the resource is invalidated.
+ * </p>
+ * Hit, miss, eviction and load time statistics are collected and can be queried via {@link #getStats()}.
+ */
+public class ResourceCache {
+
+    private final int maxEntries;
+
+    // key -> (possibly still running) load of the resource
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+
+    // keeps track of the access order of the unpinned keys for LRU eviction (guarded by itself)
+    private final LinkedHashMap<String, Boolean> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    /**
+     * Snapshot of the cache statistics.
+     *
+     * @param hits number of requests answered from the cache (including waits on an in-flight load)
+     * @param misses number of requests that triggered a load
+     * @param evictions number of entries dropped due to the size bound
+     * @param totalLoadNanos accumulated time spent inside loaders
+     * @param size number of currently cached entries
+     */
+    public record Stats(long hits, long misses, long evictions, long totalLoadNanos, int size) {
+
+        /**
+         * @return fraction of requests answered from the cache, 0 if there were no requests yet
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        /**
+         * @return average load time in milliseconds, 0 if nothing was loaded yet
+         */
+        public double averageLoadMillis() {
+            return misses == 0 ? 0 : totalLoadNanos / 1e6 / misses;
+        }
+    }
+
+    /**
+     * A loaded resource, referenced strongly if it is pinned and softly otherwise.
+     */
+    private record Entry(Object pinnedValue, SoftReference<Object> softValue) {
+
+        /**
+         * @return the resource, null if it got collected or the loader returned null
+         */
+        private Object value() {
+            return pinnedValue != null ? pinnedValue : softValue.get();
+        }
+
+        private boolean isPinned() {
+            return pinnedValue != null;
+        }
+    }
+
+    /**
+     * Constructs a cache holding at most the given number of unpinned resources.
+     *
+     * @param maxEntries the maximum number of cached unpinned resources, has to be positive
+     */
+    public ResourceCache(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries has to be positive: " + maxEntries);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the resource cached under the given key. If it is not cached yet (or was evicted / collected),
+     * the loader is run exactly once, concurrent requests of the same key wait for that load.
+     * A loader result of {@code null} is returned but not cached.
+     *
+     * @param key the key of the resource, e.g. its resource path
+     * @param type the expected type of the resource
+     * @param loader loads the resource if it is not cached
+     * @param <T> the type of the resource
+     * @return the cached or freshly loaded resource, or null if the loader returned null
+     * @throws ClassCastException if the resource cached under the key is not of the requested type
+     */
+    public <T> T get(String key, Class<T> type, Supplier<? extends T> loader) {
+        return get(key, type, loader, false);
+    }
+
+    /**
+     * Like {@link #get(String, Class, Supplier)}, but the loaded resource is held strongly and never evicted,
+     * such that all requests return the same object until it is invalidated. A resource that is already cached
+     * under the key unpinned is returned as it is.
+     *
+     * @param key the key of the resource, e.g. its resource path
+     * @param type the expected type of the resource
+     * @param loader loads the resource if it is not cached
+     * @param <T> the type of the resource
+     * @return the cached or freshly loaded resource, or null if the loader returned null
+     * @throws ClassCastException if the resource cached under the key is not of the requested type
+     */
+    public <T> T getPinned(String key, Class<T> type, Supplier<? extends T> loader) {
+        return get(key, type, loader, true);
+    }
+
+    private <T> T get(String key, Class<T> type, Supplier<? extends T> loader, boolean pinned) {
+        while (true) {
+            CompletableFuture<Entry> load = new CompletableFuture<>();
+            CompletableFuture<Entry> existing = entries.putIfAbsent(key, load);
+
+            // this thread is responsible for the load
+            if (existing == null) {
+                misses.increment();
+                return load(key, loader, load, pinned);
+            }
+
+            // wait for a possibly running load of another thread
+            Entry entry;
+            try {
+                entry = existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                if (e.getCause() instanceof Error cause) throw cause;
+                throw e;
+            }
+
+            Object value = entry.value();
+            if (value != null) {
+                hits.increment();
+                if (!entry.isPinned()) touch(key);
+                return type.cast(value);
+            }
+
+            // value got collected (or was never loaded) -> drop the stale entry and try again
+            entries.remove(key, existing);
+        }
+    }
+
+    /**
+     * Runs the loader for the given key and publishes its result to all waiting threads.
+     */
+    private <T> T load(String key, Supplier<? extends T> loader, CompletableFuture<Entry> load, boolean pinned) {
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = loader.get();
+        } catch (Throwable e) {
+            // also on errors, e.g. running out of memory while thawing, waiting threads must not block forever
+            entries.remove(key, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+        long duration = System.nanoTime() - start;
+        loadNanos.add(duration);
+
+        if (value == null) {
+            entries.remove(key, load);
+            load.complete(new Entry(null, new SoftReference<>(null)));
+            return null;
+        }
+
+        if (pinned) {
+            load.complete(new Entry(value, null));
+        } else {
+            load.complete(new Entry(null, new SoftReference<>(value)));
+            touch(key);
+        }
+        AppLogger.getLogger().log(Level.FINE, () -> "Loaded resource " + key + " in " + duration / 1_000_000 + " ms");
+        return value;
+    }
+
+    /**
+     * Marks the key as most recently used and evicts the least recently used entries if the bound is exceeded.
+     */
+    private void touch(String key) {
+        synchronized (accessOrder) {
+            accessOrder.put(key, Boolean.TRUE);
+            Iterator<Map.Entry<String, Boolean>> iterator = accessOrder.entrySet().iterator();
+            while (accessOrder.size() > maxEntries && iterator.hasNext()) {
+                String eldest = iterator.next().getKey();
+                iterator.remove();
+                if (entries.remove(eldest) != null) evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes the resource with the given key from the cache.
+     *
+     * @param key the key of the resource to drop
+     */
+    public void invalidate(String key) {
+        synchronized (accessOrder) {
+            accessOrder.remove(key);
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes all cached resources. The statistics are kept.
+     */
+    public void clear() {
+        synchronized (accessOrder) {
+            accessOrder.clear();
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return a snapshot of the current cache statistics
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), loadNanos.sum(), entries.size());
+    }
+}
@@ -0,0 +1,97 @@
+package explorer.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns identifier strings (fileIDs, conceptIDs) and maps each of them to a dense int index.
+ * <p>
+ * Every identifier exists only once in memory (the canonical instance returned by {@link #canonical(String)}),
+ * and its index can be used to address plain arrays instead of hashing the string over and over again.
+ * Indices are assigned in order of first interning, starting at 0, and never change during a session.
+ * </p>
+ * Two global tables exist: one for fileIDs (which is also the index space of the meshes)
+ * and one for conceptIDs. Both tables are shared between the isA and partOf tree.
+ * The table is thread-safe, since meshes are loaded and interned in parallel.
+ */
+public class SymbolTable {
+
+    /** Global table of all fileIDs (e.g. "FJ2810"), its indices are used as mesh indices. */
+    public static final SymbolTable FILE_IDS = new SymbolTable();
+
+    /** Global table of all conceptIDs (e.g. "FMA20394"). */
+    public static final SymbolTable CONCEPT_IDS = new SymbolTable();
+
+    private final ConcurrentHashMap<String, Integer> indices = new ConcurrentHashMap<>();
+
+    // index -> canonical symbol; only grows, written under the lock and published via the volatile field
+    private volatile String[] symbols = new String[1024];
+    private int size = 0;
+
+    /**
+     * Returns the index of the given symbol, assigning the next free index if it was not interned yet.
+     *
+     * @param symbol the symbol to intern, must not be null
+     * @return the dense index of the symbol
+     */
+    public int intern(String symbol) {
+        Integer index = indices.get(symbol);
+        if (index != null) return index;
+
+        synchronized (this) {
+            index = indices.get(symbol);
+            if (index != null) return index;
+
+            String[] current = symbols;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[size] = symbol;
+            symbols = current;
+            indices.put(symbol, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the index of the given symbol without interning it.
+     *
+     * @param symbol the symbol to look up
+     * @return the index of the symbol or -1 if it was never interned
+     */
+    public int indexOf(String symbol) {
+        if (symbol == null) return -1;
+        Integer index = indices.get(symbol);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the canonical instance of the given symbol, interning it if necessary.
+     *
+     * @param symbol the symbol to canonicalize, may be null
+     * @return the shared instance equal to the given symbol, or null if the symbol was null
+     */
+    public String canonical(String symbol) {
+        if (symbol == null) return null;
+        return symbol(intern(symbol));
+    }
+
+    /**
+     * @param index the index of the symbol
+     * @return the symbol with the given index
+     * @throws IndexOutOfBoundsException if no symbol with that index exists
+     */
+    public String symbol(int index) {
+        String[] current = symbols;
+        String symbol = index >= 0 && index < current.length ? current[index] : null;
+        if (symbol == null) throw new IndexOutOfBoundsException("No symbol with index " + index);
+        return symbol;
+    }
+
+    /**
+     * @return the number of interned symbols, i.e. the size an array indexed by this table needs
+     */
+    public int size() {
+        return indices.size();
+    }
+}
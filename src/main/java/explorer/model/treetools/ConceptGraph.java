@@ -0,0 +1,279 @@
+package explorer.model.treetools;
+
+import explorer.model.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable directed acyclic graph of anatomical concepts (e.g. the full FMA isA or partOf relation).
+ * <p>
+ * In contrast to a ConceptNode tree, every concept exists exactly once, regardless of how many parents it has.
+ * Concepts are numbered densely from 0 and all edges are stored in adjacency arrays (compressed sparse rows)
+ * for both directions, so memory scales with the number of concepts and relations and not with the number of
+ * root-to-leaf paths.
+ * </p>
+ * Trees for the TreeViews are derived with {@link #deriveTree(String)}: the derived ConceptNodes are created
+ * lazily while the tree is traversed, a concept with several parents appears once below each of them.
+ * <p>
+ * So far the graph is only used offline by the TreeBuilder, which fully derives the trees and serializes them.
+ * The application loads these serialized trees, in which every path to a concept is stored, so its memory still
+ * scales with the number of paths.
+ * </p>
+ */
+public final class ConceptGraph {
+
+    // graph local concept numbering
+    private final SymbolTable conceptNumbers;
+    private final String[] names;
+
+    // concept -> [offsets[c], offsets[c + 1]) in the adjacency array
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int[] parentOffsets;
+    private final int[] parents;
+
+    // concept -> mesh indices (SymbolTable.FILE_IDS) in [fileOffsets[c], fileOffsets[c + 1])
+    private final int[] fileOffsets;
+    private final int[] files;
+
+    private ConceptGraph(Builder builder) {
+        int size = builder.conceptNumbers.size();
+        this.conceptNumbers = builder.conceptNumbers;
+        this.names = Arrays.copyOf(builder.names, size);
+
+        int[] edgeParents = Arrays.copyOf(builder.edgeParents, builder.edgeCount);
+        int[] edgeChildren = Arrays.copyOf(builder.edgeChildren, builder.edgeCount);
+        this.childOffsets = new int[size + 1];
+        this.children = groupBy(edgeParents, edgeChildren, size, childOffsets);
+        this.parentOffsets = new int[size + 1];
+        this.parents = groupBy(edgeChildren, edgeParents, size, parentOffsets);
+
+        this.fileOffsets = new int[size + 1];
+        int fileCount = 0;
+        for (int concept = 0; concept < size; concept++) {
+            int[] conceptFiles = builder.files.size() > concept ? builder.files.get(concept) : null;
+            fileCount += conceptFiles == null ? 0 : conceptFiles.length;
+            fileOffsets[concept + 1] = fileCount;
+        }
+        this.files = new int[fileCount];
+        for (int concept = 0; concept < size; concept++) {
+            int[] conceptFiles = builder.files.size() > concept ? builder.files.get(concept) : null;
+            if (conceptFiles != null) System.arraycopy(conceptFiles, 0, files, fileOffsets[concept], conceptFiles.length);
+        }
+    }
+
+    /**
+     * Groups the values by their keys with a counting sort, keeping the order of the values per key.
+     *
+     * @param keys key of every edge
+     * @param values value of every edge
+     * @param keyCount number of distinct keys
+     * @param offsets filled with the start of every key group, has keyCount + 1 entries
+     * @return the values grouped by key
+     */
+    private static int[] groupBy(int[] keys, int[] values, int keyCount, int[] offsets) {
+        for (int key : keys) offsets[key + 1]++;
+        for (int key = 0; key < keyCount; key++) offsets[key + 1] += offsets[key];
+        int[] next = Arrays.copyOf(offsets, keyCount);
+        int[] grouped = new int[values.length];
+        for (int i = 0; i < keys.length; i++) grouped[next[keys[i]]++] = values[i];
+        return grouped;
+    }
+
+    /**
+     * @return the number of concepts
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return the number of parent-child relations
+     */
+    public int edgeCount() {
+        return children.length;
+    }
+
+    /**
+     * @param conceptID a concept ID
+     * @return the number of the concept in this graph, or -1 if the graph does not contain it
+     */
+    public int indexOf(String conceptID) {
+        return conceptNumbers.indexOf(conceptID);
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return its concept ID
+     */
+    public String conceptID(int concept) {
+        return conceptNumbers.symbol(concept);
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return its name
+     */
+    public String name(int concept) {
+        return names[concept];
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the numbers of its children, in the order the relations were added
+     */
+    public int[] children(int concept) {
+        return Arrays.copyOfRange(children, childOffsets[concept], childOffsets[concept + 1]);
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the numbers of its parents, in the order the relations were added
+     */
+    public int[] parents(int concept) {
+        return Arrays.copyOfRange(parents, parentOffsets[concept], parentOffsets[concept + 1]);
+    }
+
+    /**
+     * @param concept the number of a concept
+     * @return the mesh indices (see {@link SymbolTable#FILE_IDS}) of the concept
+     */
+    public int[] fileIndices(int concept) {
+        return Arrays.copyOfRange(files, fileOffsets[concept], fileOffsets[concept + 1]);
+    }
+
+    /**
+     * @return the numbers of all concepts without a parent
+     */
+    public int[] roots() {
+        int[] roots = new int[size()];
+        int count = 0;
+        for (int concept = 0; concept < size(); concept++) {
+            if (parentOffsets[concept] == parentOffsets[concept + 1]) roots[count++] = concept;
+        }
+        return Arrays.copyOf(roots, count);
+    }
+
+    /**
+     * Derives the tree of all paths starting at the given concept, as seen by a TreeView.
+     * Only the root is created immediately, the children of a derived node are created on first access.
+     * A relation that would close a cycle on the current path is skipped.
+     *
+     * @param rootConceptID the concept ID of the root
+     * @return the lazily derived root, or null if the graph does not contain the concept
+     */
+    public ConceptNode deriveTree(String rootConceptID) {
+        int root = indexOf(rootConceptID);
+        return root < 0 ? null : deriveNode(root, null);
+    }
+
+    /**
+     * Concepts on the path from a derived node to the derived root, used to skip cyclic relations.
+     */
+    private record Path(int concept, Path parent) {
+        private boolean contains(int other) {
+            for (Path path = this; path != null; path = path.parent) {
+                if (path.concept == other) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Creates the derived node of the given concept, whose children are derived on first access.
+     */
+    private ConceptNode deriveNode(int concept, Path parentPath) {
+        Path path = new Path(concept, parentPath);
+
+        ArrayList<String> fileIDs = new ArrayList<>(fileOffsets[concept + 1] - fileOffsets[concept]);
+        for (int i = fileOffsets[concept]; i < fileOffsets[concept + 1]; i++) {
+            fileIDs.add(SymbolTable.FILE_IDS.symbol(files[i]));
+        }
+
+        int childCount = 0;
+        for (int i = childOffsets[concept]; i < childOffsets[concept + 1]; i++) {
+            if (!path.contains(children[i])) childCount++;
+        }
+        ConceptNode node = new ConceptNode(conceptID(concept), names[concept], fileIDs, childCount, parent -> {
+            ArrayList<ConceptNode> derived = new ArrayList<>();
+            for (int i = childOffsets[concept]; i < childOffsets[concept + 1]; i++) {
+                if (!path.contains(children[i])) derived.add(deriveNode(children[i], path));
+            }
+            return derived;
+        });
+        node.internSymbols();
+        return node;
+    }
+
+    /**
+     * Collects concepts and relations and builds the immutable graph. Not thread-safe.
+     */
+    public static final class Builder {
+        private final SymbolTable conceptNumbers = new SymbolTable();
+        private String[] names = new String[1024];
+        private final List<int[]> files = new ArrayList<>();
+
+        private int[] edgeParents = new int[1024];
+        private int[] edgeChildren = new int[1024];
+        private int edgeCount = 0;
+
+        /**
+         * Adds a concept or updates its name.
+         *
+         * @param conceptID the concept ID
+         * @param name the name of the concept, null keeps the current name
+         * @return the number of the concept
+         */
+        public int addConcept(String conceptID, String name) {
+            int concept = conceptNumbers.intern(SymbolTable.CONCEPT_IDS.canonical(conceptID));
+            if (concept >= names.length) names = Arrays.copyOf(names, names.length * 2);
+            if (name != null) names[concept] = name;
+            return concept;
+        }
+
+        /**
+         * Adds a parent-child relation, both concepts are added if necessary.
+         * Adding the same relation twice has no additional effect on derived trees beyond a duplicated child.
+         *
+         * @param parentID concept ID of the parent
+         * @param parentName name of the parent
+         * @param childID concept ID of the child
+         * @param childName name of the child
+         * @return this builder
+         */
+        public Builder addRelation(String parentID, String parentName, String childID, String childName) {
+            int parent = addConcept(parentID, parentName);
+            int child = addConcept(childID, childName);
+            if (edgeCount == edgeParents.length) {
+                edgeParents = Arrays.copyOf(edgeParents, edgeCount * 2);
+                edgeChildren = Arrays.copyOf(edgeChildren, edgeCount * 2);
+            }
+            edgeParents[edgeCount] = parent;
+            edgeChildren[edgeCount++] = child;
+            return this;
+        }
+
+        /**
+         * Sets the file IDs of a concept, the concept is added if necessary.
+         *
+         * @param conceptID the concept ID
+         * @param fileIDs the associated file IDs, null for none
+         * @return this builder
+         */
+        public Builder setFileIDs(String conceptID, List<String> fileIDs) {
+            int concept = addConcept(conceptID, null);
+            while (files.size() <= concept) files.add(null);
+            files.set(concept, fileIDs == null ? null : fileIDs.stream().mapToInt(SymbolTable.FILE_IDS::intern).toArray());
+            return this;
+        }
+
+        /**
+         * @return the immutable graph of all concepts and relations added so far
+         */
+        public ConceptGraph build() {
+            return new ConceptGraph(this);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package explorer.model.treetools;
 
+import explorer.model.SymbolTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 /**
  * Represents a node in the anatomical structure tree.
@@ -15,6 +18,35 @@ public class ConceptNode {
     private ArrayList<String> fileIDs;
     private ArrayList<ConceptNode> children;
 
+    // dense symbol indices of the conceptID and the fileIDs (see SymbolTable), not serialized
+    // -> computed on first request, fileIndices == null marks a node that was not interned yet
+    private transient int conceptIndex;
+    private transient int[] fileIndices;
+
+    // lazily deserialized nodes (see LazyTreeFormat) get their children only on first access,
+    // childLoader == null marks a node whose children are present in memory
+    private transient volatile ChildLoader childLoader;
+    private transient int pendingChildCount;
+
+    // pre-order position + 1 of this node in the TreeIndex of its tree, not serialized
+    // -> 0 marks a node that is not part of an indexed tree
+    private transient int treeIndex;
+
+    // index of the tree rooted at this node (see TreeIndex#of), only set on roots, not serialized
+    private transient volatile TreeIndex indexOfTree;
+
+    /**
+     * Loads the children of a lazily deserialized node on first access.
+     */
+    @FunctionalInterface
+    interface ChildLoader {
+        /**
+         * @param parent the node whose children are requested
+         * @return the deserialized children of the node
+         */
+        ArrayList<ConceptNode> loadChildren(ConceptNode parent);
+    }
+
     /**
      * Constructs an AnatomyNode with the specified concept ID, name, child nodes, and file IDs.
      *
@@ -30,15 +62,92 @@ public class ConceptNode {
         this.fileIDs = fileIds;
     }
 
+    /**
+     * Constructs a node whose children are not deserialized yet.
+     * They are loaded by the given loader when they are accessed the first time.
+     *
+     * @param conceptId the unique identifier of the anatomical concept
+     * @param name the display name of the node
+     * @param fileIds the list of associated file IDs
+     * @param childCount the number of children the node will have once they are loaded
+     * @param childLoader loads the children on first access
+     */
+    ConceptNode(String conceptId, String name, ArrayList<String> fileIds, int childCount, ChildLoader childLoader) {
+        this(conceptId, name, null, fileIds);
+        this.pendingChildCount = childCount;
+        this.childLoader = childCount == 0 ? null : childLoader;
+        if (this.childLoader == null) this.children = new ArrayList<>(0);
+    }
+
     /**
      * Checks whether the node is a leaf (has no children).
+     * Does not trigger the loading of lazily deserialized children.
      *
      * @return true if the node has no children, false otherwise
      */
     public boolean isLeaf() {
+        if (childLoader != null) return pendingChildCount == 0;
         return children.isEmpty();
     }
 
+    /**
+     * @return true if the children of this node are present in memory,
+     *         false if they will be deserialized on the next access
+     */
+    public boolean isLoaded() {
+        return childLoader == null;
+    }
+
+    /**
+     * Forces the deserialization of the whole subtree rooted at this node.
+     * Useful before hot paths (e.g. full traversals on several threads) that should not pay the lazy loading
+     * cost node by node.
+     */
+    public void loadSubtree() {
+        // reaching a node loads its children
+        TreeTraversal.traverse(this, TreeTraversal.Order.PRE_ORDER, (node, depth) -> true);
+    }
+
+    /**
+     * @return the pre-order position assigned by the TreeIndex of the tree containing this node,
+     * -1 if the node is not part of an indexed tree
+     */
+    int getTreeIndex() {
+        return treeIndex - 1;
+    }
+
+    /**
+     * @param treeIndex the pre-order position of this node in the TreeIndex of its tree
+     */
+    void setTreeIndex(int treeIndex) {
+        this.treeIndex = treeIndex + 1;
+    }
+
+    /**
+     * @return the index of the tree rooted at this node, null if it was not built yet
+     */
+    TreeIndex getIndexOfTree() {
+        return indexOfTree;
+    }
+
+    /**
+     * @param indexOfTree the index of the tree rooted at this node
+     */
+    void setIndexOfTree(TreeIndex indexOfTree) {
+        this.indexOfTree = indexOfTree;
+    }
+
+    /**
+     * Deserializes the children of this node, if that did not happen yet.
+     * Synchronized, such that concurrent accesses load the children only once.
+     */
+    private synchronized void loadChildren() {
+        ChildLoader loader = childLoader;
+        if (loader == null) return;
+        children = loader.loadChildren(this);
+        childLoader = null;
+    }
+
     /**
      * @return the concept ID
      */
@@ -60,10 +169,47 @@ public class ConceptNode {
         return fileIDs;
     }
 
+    /**
+     * @return the index of the concept ID in {@link SymbolTable#CONCEPT_IDS}
+     */
+    public int getConceptIndex() {
+        if (fileIndices == null) internSymbols();
+        return conceptIndex;
+    }
+
+    /**
+     * Returns the indices of the associated file IDs in {@link SymbolTable#FILE_IDS}.
+     * These are also the indices of the corresponding meshes.
+     *
+     * @return the file ID indices of this node, in the same order as {@link #getFileIDs()}
+     */
+    public int[] getFileIndices() {
+        if (fileIndices == null) internSymbols();
+        return fileIndices;
+    }
+
+    /**
+     * Interns the concept ID and all file IDs of this node into the global symbol tables.
+     * The IDs are replaced by their canonical instances, such that equal IDs of both trees and
+     * the meshes share one String instance, and their dense indices are stored in this node.
+     */
+    public void internSymbols() {
+        conceptIndex = conceptID == null ? -1 : SymbolTable.CONCEPT_IDS.intern(conceptID);
+        if (conceptIndex >= 0) conceptID = SymbolTable.CONCEPT_IDS.symbol(conceptIndex);
+
+        int[] indices = new int[fileIDs == null ? 0 : fileIDs.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = SymbolTable.FILE_IDS.intern(fileIDs.get(i));
+            fileIDs.set(i, SymbolTable.FILE_IDS.symbol(indices[i]));
+        }
+        fileIndices = indices;
+    }
+
     /**
      * @return the list of child nodes
      */
     public ArrayList<ConceptNode> getChildren() {
+        if (childLoader != null) loadChildren();
         return children;
     }
 
@@ -83,6 +229,7 @@ public class ConceptNode {
      */
     public void setFileIDs(ArrayList<String> fileIDs) {
         this.fileIDs = fileIDs;
+        this.fileIndices = null;
     }
 
     /**
@@ -92,6 +239,7 @@ public class ConceptNode {
      */
     public void addFileID(String objPath) {
         this.fileIDs.add(objPath);
+        this.fileIndices = null;
     }
 
     /**
@@ -101,6 +249,7 @@ public class ConceptNode {
      */
     public void setChildren(ArrayList<ConceptNode> children) {
         this.children = children;
+        this.childLoader = null;
     }
 
     /**
@@ -109,36 +258,24 @@ public class ConceptNode {
      * @param child the child node to add
      */
     public void addChild(ConceptNode child) {
-        children.add(child);
+        getChildren().add(child);
     }
 
     /**
      * Converts the tree structure rooted at the current node into Newick format.
+     * For large trees prefer streaming with {@link NewickFormat#write(ConceptNode, Appendable)}.
      *
      * @return a String representing the tree structure in Newick format, ending with a semicolon
      */
     public String toNewick() {
-        return buildNewick(this) + ";";
-    }
-
-    /**
-     * Recursively builds a Newick representation of the tree structure starting from the given node.
-     * The Newick format represents tree structures using nested, parenthetical notation.
-     *
-     * Only non-filtered nodes are saved!
-     *
-     * @param node the root node for which the Newick representation is to be built
-     * @return a String representing the subtree rooted at the given node in Newick format
-     */
-    private String buildNewick(ConceptNode node) {
-        if (node.isLeaf()) {
-            return node.name;
-        } else {
-            String childrenNewick = node.getChildren().stream()
-                    .map(this::buildNewick)
-                    .collect(Collectors.joining(","));
-            return "(" + childrenNewick + ")" + node.getName();
+        StringBuilder newick = new StringBuilder();
+        try {
+            NewickFormat.write(this, newick);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
         }
+        return newick.toString();
     }
 
     /**
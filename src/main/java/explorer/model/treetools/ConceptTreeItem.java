@@ -0,0 +1,209 @@
+package explorer.model.treetools;
+
+import explorer.model.CompactBitSet;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TreeItem displaying a ConceptNode, whose child items are created on the first access of
+ * {@link #getChildren()}, which the TreeView does when the item is expanded.
+ * <p>
+ * Only the root item is created up front, so a TreeView only holds items (with their listeners and event
+ * handlers) for the branches a user actually opened. Searches, selection sync and statistics work on the
+ * ConceptNode model and its {@link TreeIndex}, and materialize the items on the path to a hit with
+ * {@link #materialize(TreeItem, int)}.
+ * </p>
+ * <p>
+ * All items of one tree share a filter ({@link #setFilter(CompactBitSet)}): while it is set, every item only
+ * shows the child items of nodes in the filter. Hidden items are kept, so changing the filter only swaps
+ * the children lists of the affected items instead of rebuilding the hierarchy.
+ * </p>
+ * Child items keep the order of the child nodes, so the pre-order numbers of the children of an item ascend.
+ */
+public class ConceptTreeItem extends TreeItem<ConceptNode> {
+
+    /**
+     * Filter state shared by all items of one tree.
+     */
+    private static final class Filter {
+        // pre-order numbers of the shown nodes, closed under ancestors, null shows all nodes
+        private CompactBitSet visible;
+        private TreeIndex treeIndex;
+
+        private boolean shows(ConceptNode node) {
+            return visible == null || visible.contains(treeIndex.indexOf(node));
+        }
+    }
+
+    private final Filter filter;
+
+    // all child items regardless of the filter, null until the children are created
+    private List<ConceptTreeItem> allChildren = null;
+
+    /**
+     * Creates the root item of a tree.
+     *
+     * @param node the concept node to display
+     */
+    public ConceptTreeItem(ConceptNode node) {
+        this(node, new Filter());
+    }
+
+    private ConceptTreeItem(ConceptNode node, Filter filter) {
+        super(node);
+        this.filter = filter;
+    }
+
+    /**
+     * Answered by the model, such that the TreeView can draw the disclosure arrow without creating the children.
+     * While a filter is set, an item without shown children is a leaf.
+     *
+     * @return true if the item has no (shown) children
+     */
+    @Override
+    public boolean isLeaf() {
+        if (filter.visible != null) return getChildren().isEmpty();
+        return getValue().isLeaf();
+    }
+
+    /**
+     * Creates the child items on the first call.
+     *
+     * @return the child items of the nodes shown by the filter
+     */
+    @Override
+    public ObservableList<TreeItem<ConceptNode>> getChildren() {
+        if (allChildren == null) {
+            ArrayList<ConceptNode> children = getValue().getChildren();
+            allChildren = new ArrayList<>(children.size());
+            for (ConceptNode child : children) allChildren.add(new ConceptTreeItem(child, filter));
+            super.getChildren().setAll(shownChildren());
+        }
+        return super.getChildren();
+    }
+
+    /**
+     * @return true if the child items of this item exist already
+     */
+    public boolean hasCreatedChildren() {
+        return allChildren != null;
+    }
+
+    /**
+     * @return the child items shown by the current filter
+     */
+    private List<ConceptTreeItem> shownChildren() {
+        if (filter.visible == null) return allChildren;
+        List<ConceptTreeItem> shown = new ArrayList<>();
+        for (ConceptTreeItem child : allChildren) {
+            if (filter.shows(child.getValue())) shown.add(child);
+        }
+        return shown;
+    }
+
+    /**
+     * Shows only the given nodes in the tree of this root item, or all nodes again.
+     * All shown nodes get their items and all shown items with shown children are expanded.
+     * <p>
+     * Only the items of nodes that are shown before or after the change are visited, as the sets are closed under
+     * ancestors: an item outside both sets has no shown descendants in either state. Refining a filter therefore
+     * costs in the size of the previous filter, not of the tree.
+     * </p>
+     * Every changed children list fires events, so a displayed tree should be updated in a batch
+     * (see {@link TreeUtils#updateInBatch}).
+     *
+     * @param visible pre-order numbers of the nodes to show, including all of their ancestors (see
+     *                {@link TreeIndex#withAncestors(int[])}), null to show all nodes
+     */
+    public void setFilter(CompactBitSet visible) {
+        if (getParent() != null) throw new IllegalStateException("The filter has to be set on the root item");
+        CompactBitSet previous = filter.visible;
+        if (visible != null && filter.treeIndex == null) filter.treeIndex = TreeIndex.of(getValue());
+        filter.visible = visible;
+
+        TreeTraversal.traverse(this, item -> {
+            // descend only into items that were or are shown
+            if (item.allChildren == null) return List.<ConceptTreeItem>of();
+            if (previous == null || visible == null) return item.allChildren;
+            List<ConceptTreeItem> affected = new ArrayList<>();
+            for (ConceptTreeItem child : item.allChildren) {
+                int index = filter.treeIndex.indexOf(child.getValue());
+                if (previous.contains(index) || visible.contains(index)) affected.add(child);
+            }
+            return affected;
+        }, TreeTraversal.Order.PRE_ORDER, (item, depth) -> {
+            // shown nodes get their items
+            if (visible != null && filter.shows(item.getValue())) item.getChildren();
+            if (item.allChildren == null) return true;
+            List<ConceptTreeItem> shown = item.shownChildren();
+            if (!item.superChildren().equals(shown)) item.superChildren().setAll(shown);
+            if (visible != null && !shown.isEmpty()) item.setExpanded(true);
+            return true;
+        });
+    }
+
+    private ObservableList<TreeItem<ConceptNode>> superChildren() {
+        return super.getChildren();
+    }
+
+    /**
+     * Returns the item displaying the given node, creating the items on the path from the root item if necessary.
+     * No item is expanded.
+     *
+     * @param rootItem the item displaying the root of the tree
+     * @param node the pre-order number of a node of the tree (see {@link TreeIndex})
+     * @return the item displaying the node, null if it is not reachable from the root item (e.g. filtered out)
+     */
+    public static TreeItem<ConceptNode> materialize(TreeItem<ConceptNode> rootItem, int node) {
+        return resolve(rootItem, node, true);
+    }
+
+    /**
+     * Returns the item displaying the given node if it was created already, without creating any items.
+     * An item that does not exist can neither be selected nor expanded.
+     *
+     * @param rootItem the item displaying the root of the tree
+     * @param node the pre-order number of a node of the tree (see {@link TreeIndex})
+     * @return the item displaying the node, null if it was not created yet or is filtered out
+     */
+    public static TreeItem<ConceptNode> existingItem(TreeItem<ConceptNode> rootItem, int node) {
+        return resolve(rootItem, node, false);
+    }
+
+    /**
+     * Descends from the root item along the path to the node. The child on the path is found by binary search,
+     * as the pre-order numbers of the child items ascend.
+     */
+    private static TreeItem<ConceptNode> resolve(TreeItem<ConceptNode> rootItem, int node, boolean create) {
+        if (rootItem == null) return null;
+        TreeIndex treeIndex = TreeIndex.of(rootItem.getValue());
+        int[] path = treeIndex.pathToRoot(node);
+
+        TreeItem<ConceptNode> item = rootItem;
+        for (int step = path.length - 2; step >= 0 && item != null; step--) {
+            if (!create && item instanceof ConceptTreeItem lazyItem && !lazyItem.hasCreatedChildren()) return null;
+            item = childOf(item, path[step], treeIndex);
+        }
+        return item;
+    }
+
+    /**
+     * @return the child item displaying the node with the given pre-order number, null if there is none
+     */
+    private static TreeItem<ConceptNode> childOf(TreeItem<ConceptNode> item, int node, TreeIndex treeIndex) {
+        ObservableList<TreeItem<ConceptNode>> children = item.getChildren();
+        int low = 0;
+        int high = children.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleNode = treeIndex.indexOf(children.get(middle).getValue());
+            if (middleNode < node) low = middle + 1;
+            else if (middleNode > node) high = middle - 1;
+            else return children.get(middle);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,270 @@
+package explorer.model.treetools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * BK-tree over the distinct words of the lower case concept names of one tree, answering approximate searches
+ * that tolerate typos, e.g. "sternocleidomastiod" for "sternocleidomastoid".
+ * <p>
+ * A BK-tree arranges the words such that every child has a fixed edit distance (see {@link #distance}) to its
+ * parent. By the triangle inequality, the words within distance k of a query word can only be found below
+ * children whose distance to their parent differs by at most k from the distance of the query word to the
+ * parent, so a search only computes the distances to a small part of the words. Like {@link NameIndex}, the tree
+ * and the postings of the words (ascending pre-order numbers of the nodes whose names contain them) are stored in
+ * int arrays.
+ * </p>
+ * A name matches a search term if each word of the term is within its tolerated distance of some word of the
+ * name. Matches are ranked by the summed distances, then by their depth in the tree, so general concepts come
+ * before specific ones, then in pre-order. The index of a tree is built once on first request and shared,
+ * see {@link #of(TreeIndex)}.
+ */
+public final class FuzzyNameIndex {
+
+    // tree -> fuzzy name index of the tree, weak keys such that dropped trees do not keep their index alive
+    private static final Map<TreeIndex, FuzzyNameIndex> indices = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // BK-tree nodes visited between two checks of the time limit
+    private static final int CHECK_INTERVAL = 64;
+
+    /**
+     * Result of a search.
+     *
+     * @param nodes the pre-order numbers of the matching nodes, ranked
+     * @param distances the summed edit distance of each match
+     * @param complete false if the time limit ended the search early, the matches then only take the words of the
+     *                 term into account that were searched in time
+     */
+    public record Matches(int[] nodes, int[] distances, boolean complete) {}
+
+    // pre-order number -> depth in the tree, copied such that the index does not keep its (weak) key alive
+    private final int[] depths;
+
+    // distinct words, word i has the postings [offsets[i], offsets[i + 1])
+    private final String[] words;
+    private final int[] offsets;
+    private final int[] postings;
+
+    // BK-tree over the word numbers, rooted at word 0: children are linked lists of siblings
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] distanceToParent;
+
+    /**
+     * Returns the fuzzy name index of the given tree, building it on first request.
+     *
+     * @param treeIndex the index of the tree
+     * @return the shared fuzzy name index of the tree
+     */
+    public static FuzzyNameIndex of(TreeIndex treeIndex) {
+        synchronized (indices) {
+            return indices.computeIfAbsent(treeIndex, FuzzyNameIndex::new);
+        }
+    }
+
+    private FuzzyNameIndex(TreeIndex treeIndex) {
+        depths = new int[treeIndex.size()];
+        for (int node = 0; node < depths.length; node++) depths[node] = treeIndex.depth(node);
+        NameIndex nameIndex = NameIndex.of(treeIndex);
+
+        // word -> nodes containing it, in pre-order
+        Map<String, List<Integer>> nodesByWord = new HashMap<>();
+        List<String> wordList = new ArrayList<>();
+        for (int node = 0; node < nameIndex.size(); node++) {
+            for (String word : split(nameIndex.lowerCaseName(node))) {
+                List<Integer> nodes = nodesByWord.get(word);
+                if (nodes == null) {
+                    nodes = new ArrayList<>();
+                    nodesByWord.put(word, nodes);
+                    wordList.add(word);
+                }
+                if (nodes.isEmpty() || nodes.getLast() != node) nodes.add(node);
+            }
+        }
+
+        words = wordList.toArray(new String[0]);
+        offsets = new int[words.length + 1];
+        for (int i = 0; i < words.length; i++) offsets[i + 1] = offsets[i] + nodesByWord.get(words[i]).size();
+        postings = new int[offsets[words.length]];
+        for (int i = 0; i < words.length; i++) {
+            int position = offsets[i];
+            for (int node : nodesByWord.get(words[i])) postings[position++] = node;
+        }
+
+        firstChild = new int[words.length];
+        nextSibling = new int[words.length];
+        distanceToParent = new int[words.length];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        for (int word = 1; word < words.length; word++) insert(word);
+    }
+
+    /**
+     * Hangs the word below the first BK-tree node without a child at its distance, descending from the root.
+     */
+    private void insert(int word) {
+        int current = 0;
+        while (true) {
+            int distance = distance(words[word], words[current]);
+            int child = firstChild[current];
+            while (child >= 0 && distanceToParent[child] != distance) child = nextSibling[child];
+            if (child < 0) {
+                distanceToParent[word] = distance;
+                nextSibling[word] = firstChild[current];
+                firstChild[current] = word;
+                return;
+            }
+            current = child;
+        }
+    }
+
+    /**
+     * @return the words of the lower case text: maximal runs of letters and digits
+     */
+    private static List<String> split(String text) {
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) start = i;
+            if (!wordChar && start >= 0) {
+                result.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the edit distance a query word of the given length may have to a word of a name
+     */
+    private static int tolerance(int length) {
+        if (length <= 3) return 0;
+        return length <= 6 ? 1 : 2;
+    }
+
+    /**
+     * Damerau-Levenshtein distance of the words: the minimal number of inserted, deleted or replaced chars and swaps
+     * of adjacent chars, so a swap like "lugn" for "lung" counts as one typo. Unlike its restricted variant, this
+     * distance is a metric, which the BK-tree relies on.
+     */
+    private static int distance(String a, String b) {
+        int infinity = a.length() + b.length();
+        int[][] d = new int[a.length() + 2][b.length() + 2];
+        d[0][0] = infinity;
+        for (int i = 0; i <= a.length(); i++) {
+            d[i + 1][0] = infinity;
+            d[i + 1][1] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j + 1] = infinity;
+            d[1][j + 1] = j;
+        }
+
+        // char -> last row of a containing it
+        Map<Character, Integer> lastRow = new HashMap<>();
+        for (int i = 1; i <= a.length(); i++) {
+            char c = a.charAt(i - 1);
+            int lastMatchColumn = 0;
+            for (int j = 1; j <= b.length(); j++) {
+                int i1 = lastRow.getOrDefault(b.charAt(j - 1), 0);
+                int j1 = lastMatchColumn;
+                int cost = 1;
+                if (c == b.charAt(j - 1)) {
+                    cost = 0;
+                    lastMatchColumn = j;
+                }
+                d[i + 1][j + 1] = Math.min(Math.min(d[i][j] + cost, d[i + 1][j] + 1),
+                        Math.min(d[i][j + 1] + 1, d[i1][j1] + (i - i1 - 1) + 1 + (j - j1 - 1)));
+            }
+            lastRow.put(c, i);
+        }
+        return d[a.length() + 1][b.length() + 1];
+    }
+
+    /**
+     * Finds the nodes whose names approximately contain the words of the term, ignoring case. A query word of up to
+     * three chars has to match exactly, up to six chars with one typo and longer with two.
+     *
+     * @param term the term to search
+     * @param timeLimitNanos the time the search may take, the matches found so far are returned once it is over
+     * @param cancelled checked while searching, e.g. whether the search was superseded
+     * @return the ranked matches
+     * @throws CancellationException if the search was cancelled
+     */
+    public Matches find(String term, long timeLimitNanos, BooleanSupplier cancelled) {
+        long deadline = System.nanoTime() + timeLimitNanos;
+        List<String> queryWords = split(term.toLowerCase());
+        int size = depths.length;
+        if (queryWords.isEmpty() || words.length == 0) return new Matches(new int[0], new int[0], true);
+
+        // summed distance per node, -1 once a query word did not match the node
+        int[] total = new int[size];
+        int[] best = new int[size];
+        int[] stack = new int[words.length];
+        boolean complete = true;
+        int searchedWords = 0;
+        int visited = 0;
+        for (String queryWord : queryWords) {
+            Arrays.fill(best, Integer.MAX_VALUE);
+            int tolerance = tolerance(queryWord.length());
+
+            int stackSize = 0;
+            stack[stackSize++] = 0;
+            while (stackSize > 0) {
+                if (++visited % CHECK_INTERVAL == 0) {
+                    if (cancelled.getAsBoolean()) throw new CancellationException("Fuzzy search cancelled");
+                    if (System.nanoTime() - deadline > 0) {
+                        complete = false;
+                        break;
+                    }
+                }
+                int word = stack[--stackSize];
+                int distance = distance(queryWord, words[word]);
+                if (distance <= tolerance) {
+                    for (int i = offsets[word]; i < offsets[word + 1]; i++) {
+                        best[postings[i]] = Math.min(best[postings[i]], distance);
+                    }
+                }
+                for (int child = firstChild[word]; child >= 0; child = nextSibling[child]) {
+                    if (Math.abs(distanceToParent[child] - distance) <= tolerance) stack[stackSize++] = child;
+                }
+            }
+
+            if (!complete) break;
+            for (int node = 0; node < size; node++) {
+                if (total[node] >= 0) total[node] = best[node] == Integer.MAX_VALUE ? -1 : total[node] + best[node];
+            }
+            searchedWords++;
+        }
+        if (searchedWords == 0) return new Matches(new int[0], new int[0], false);
+
+        int matchCount = 0;
+        for (int node = 0; node < size; node++) {
+            if (total[node] >= 0) matchCount++;
+        }
+        Integer[] ranked = new Integer[matchCount];
+        matchCount = 0;
+        for (int node = 0; node < size; node++) {
+            if (total[node] >= 0) ranked[matchCount++] = node;
+        }
+        Arrays.sort(ranked, (a, b) -> total[a] != total[b] ? Integer.compare(total[a], total[b])
+                : depths[a] != depths[b] ? Integer.compare(depths[a], depths[b])
+                : Integer.compare(a, b));
+
+        int[] nodes = new int[matchCount];
+        int[] distances = new int[matchCount];
+        for (int i = 0; i < matchCount; i++) {
+            nodes[i] = ranked[i];
+            distances[i] = total[ranked[i]];
+        }
+        return new Matches(nodes, distances, complete);
+    }
+}
@@ -0,0 +1,141 @@
+package explorer.model.treetools;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Binary layout of a ConceptNode tree that allows to deserialize every subtree on its own.
+ * <p>
+ * In contrast to a plain Kryo object graph, each node record stores the byte offsets of its children.
+ * A tree read with {@link #read(byte[])} therefore only decodes the root; the children of a node are decoded
+ * the first time {@link ConceptNode#getChildren()} is called on it. Nodes that are never expanded, searched
+ * or otherwise traversed are never materialized.
+ * </p>
+ * Layout (all offsets relative to the start of the body):
+ * <pre>
+ *   header:  int magic, int version, int nodeCount, int rootOffset
+ *   body:    node records in post-order, each record:
+ *            string conceptID, string name, varint #fileIDs, fileIDs..., varint #children, varint childOffsets...
+ * </pre>
+ * Records are written in post-order, so the offsets of all children are known when their parent is written.
+ */
+public class LazyTreeFormat {
+
+    private static final int MAGIC = 0x42503354; // "BP3T"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    /**
+     * Serializes the tree rooted at the given node in the lazy layout.
+     * The whole tree gets loaded for that.
+     *
+     * @param root the root of the tree to write
+     * @param stream the stream to write to, it is not closed
+     * @throws IOException if writing to the stream fails
+     */
+    public static void write(ConceptNode root, OutputStream stream) throws IOException {
+        Output body = new Output(4096, -1);
+        Map<ConceptNode, Integer> offsets = new IdentityHashMap<>();
+
+        // post-order: all children of a node are written before the node itself
+        TreeTraversal.traverse(root, TreeTraversal.Order.POST_ORDER, (node, depth) -> {
+            offsets.put(node, (int) body.total());
+            writeRecord(body, node, offsets);
+            return true;
+        });
+
+        Output header = new Output(HEADER_SIZE);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(offsets.size());
+        header.writeInt(offsets.get(root));
+
+        stream.write(header.toBytes());
+        stream.write(body.toBytes());
+        stream.flush();
+    }
+
+    /**
+     * Writes the record of one node, all its children have to be written already.
+     */
+    private static void writeRecord(Output output, ConceptNode node, Map<ConceptNode, Integer> offsets) {
+        output.writeString(node.getConceptID());
+        output.writeString(node.getName());
+
+        ArrayList<String> fileIDs = node.getFileIDs();
+        int fileCount = fileIDs == null ? 0 : fileIDs.size();
+        output.writeVarInt(fileCount, true);
+        for (int i = 0; i < fileCount; i++) {
+            output.writeString(fileIDs.get(i));
+        }
+
+        ArrayList<ConceptNode> children = node.getChildren();
+        output.writeVarInt(children.size(), true);
+        for (ConceptNode child : children) {
+            output.writeVarInt(offsets.get(child), true);
+        }
+    }
+
+    /**
+     * Reads a tree from data written by {@link #write(ConceptNode, OutputStream)}.
+     * Only the root is decoded, all other nodes are decoded on first access.
+     * The IDs of every decoded node are interned into the global symbol tables.
+     *
+     * @param data the serialized tree
+     * @return the lazily loaded root of the tree
+     * @throws IllegalArgumentException if the data is not in the lazy tree layout
+     */
+    public static ConceptNode read(byte[] data) {
+        if (data.length < HEADER_SIZE) throw new IllegalArgumentException("Data is too short for a concept tree");
+        Input header = new Input(data, 0, HEADER_SIZE);
+        if (header.readInt() != MAGIC) {
+            throw new IllegalArgumentException("Data is not a lazily loadable concept tree");
+        }
+        int version = header.readInt();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported lazy tree version: " + version);
+        header.readInt(); // node count, only informative
+        int rootOffset = header.readInt();
+
+        return readNode(data, rootOffset);
+    }
+
+    /**
+     * Decodes the node record at the given body offset. Its children are decoded on first access.
+     */
+    private static ConceptNode readNode(byte[] data, int offset) {
+        // a fresh Input per decode keeps concurrent loads of different subtrees independent
+        Input input = new Input(data);
+        input.setPosition(HEADER_SIZE + offset);
+
+        String conceptID = input.readString();
+        String name = input.readString();
+
+        int fileCount = input.readVarInt(true);
+        ArrayList<String> fileIDs = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            fileIDs.add(input.readString());
+        }
+
+        int childCount = input.readVarInt(true);
+        int[] childOffsets = new int[childCount];
+        for (int i = 0; i < childCount; i++) {
+            childOffsets[i] = input.readVarInt(true);
+        }
+
+        ConceptNode node = new ConceptNode(conceptID, name, fileIDs, childCount, parent -> {
+            ArrayList<ConceptNode> children = new ArrayList<>(childOffsets.length);
+            for (int childOffset : childOffsets) {
+                children.add(readNode(data, childOffset));
+            }
+            return children;
+        });
+        node.internSymbols();
+        return node;
+    }
+}
@@ -0,0 +1,191 @@
+package explorer.model.treetools;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Trigram index over the lower case concept names of one tree, answering case-insensitive substring queries.
+ * <p>
+ * Every lower case name is split into its overlapping trigrams (three consecutive chars), and every trigram
+ * maps to the ascending pre-order numbers of the nodes whose names contain it. The trigrams are stored sorted
+ * with their postings in one int array (compressed sparse rows), so the index holds no objects per node or
+ * trigram. A term of at least three chars is answered by intersecting the postings of its trigrams, shortest
+ * first, and verifying the few remaining candidates against the lower case names; shorter terms are verified
+ * against all names.
+ * </p>
+ * Hits are returned in pre-order, the order of the nodes in the TreeView. Lower casing uses the default locale,
+ * like {@link String#toLowerCase()} of the search term. The index of a tree is built once on first request and
+ * shared, see {@link #of(TreeIndex)}.
+ */
+public final class NameIndex {
+
+    // tree -> name index of the tree, weak keys such that dropped trees do not keep their index alive
+    private static final Map<TreeIndex, NameIndex> indices = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // pre-order number -> lower case name, "" for nodes without name
+    private final String[] lowerCaseNames;
+
+    // sorted trigrams, trigram i has the postings [offsets[i], offsets[i + 1])
+    private final long[] trigrams;
+    private final int[] offsets;
+    private final int[] postings;
+
+    /**
+     * Returns the name index of the given tree, building it on first request.
+     *
+     * @param treeIndex the index of the tree
+     * @return the shared name index of the tree
+     */
+    public static NameIndex of(TreeIndex treeIndex) {
+        synchronized (indices) {
+            return indices.computeIfAbsent(treeIndex, NameIndex::new);
+        }
+    }
+
+    /**
+     * Builds the index in two passes over the names: the first counts the postings per trigram, the second fills
+     * them in. Nodes are visited in pre-order, so every posting list is ascending.
+     */
+    private NameIndex(TreeIndex treeIndex) {
+        int size = treeIndex.size();
+        lowerCaseNames = new String[size];
+        for (int node = 0; node < size; node++) {
+            String name = treeIndex.node(node).getName();
+            lowerCaseNames[node] = name == null ? "" : name.toLowerCase();
+        }
+
+        // count the nodes per trigram, a name containing a trigram twice is counted once
+        Map<Long, int[]> counts = new HashMap<>();
+        for (int node = 0; node < size; node++) {
+            String name = lowerCaseNames[node];
+            for (int i = 0; i + 3 <= name.length(); i++) {
+                long trigram = trigram(name, i);
+                if (firstOccurrence(name, i, trigram)) counts.computeIfAbsent(trigram, key -> new int[1])[0]++;
+            }
+        }
+
+        trigrams = new long[counts.size()];
+        int position = 0;
+        for (long trigram : counts.keySet()) trigrams[position++] = trigram;
+        Arrays.sort(trigrams);
+        offsets = new int[trigrams.length + 1];
+        for (int i = 0; i < trigrams.length; i++) offsets[i + 1] = offsets[i] + counts.get(trigrams[i])[0];
+
+        postings = new int[offsets[trigrams.length]];
+        int[] next = Arrays.copyOf(offsets, trigrams.length);
+        for (int node = 0; node < size; node++) {
+            String name = lowerCaseNames[node];
+            for (int i = 0; i + 3 <= name.length(); i++) {
+                long trigram = trigram(name, i);
+                if (firstOccurrence(name, i, trigram)) postings[next[Arrays.binarySearch(trigrams, trigram)]++] = node;
+            }
+        }
+    }
+
+    /**
+     * @return the trigram starting at the given position, three 16 bit chars packed into a long
+     */
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * @return true if the trigram at the given position does not occur earlier in the text
+     */
+    private static boolean firstOccurrence(String text, int start, long trigram) {
+        for (int i = 0; i < start; i++) {
+            if (trigram(text, i) == trigram) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of indexed nodes
+     */
+    public int size() {
+        return lowerCaseNames.length;
+    }
+
+    /**
+     * @param node a pre-order number
+     * @return the lower case name of the node, "" for a node without name
+     */
+    public String lowerCaseName(int node) {
+        return lowerCaseNames[node];
+    }
+
+    /**
+     * Finds all nodes whose names contain the term, ignoring case.
+     *
+     * @param term the term to search, must not be empty
+     * @return the pre-order numbers of the hits, ascending
+     */
+    public int[] find(String term) {
+        String lowerCaseTerm = term.toLowerCase();
+        if (lowerCaseTerm.length() < 3) return verify(null, size(), lowerCaseTerm);
+
+        // postings of the distinct trigrams of the term, the shortest list first
+        int count = lowerCaseTerm.length() - 2;
+        int[] lists = new int[count];
+        int listCount = 0;
+        for (int i = 0; i < count; i++) {
+            long trigram = trigram(lowerCaseTerm, i);
+            if (!firstOccurrence(lowerCaseTerm, i, trigram)) continue;
+            int list = Arrays.binarySearch(trigrams, trigram);
+            if (list < 0) return new int[0];
+            lists[listCount++] = list;
+        }
+        Integer[] order = new Integer[listCount];
+        for (int i = 0; i < listCount; i++) order[i] = lists[i];
+        Arrays.sort(order, (a, b) -> Integer.compare(offsets[a + 1] - offsets[a], offsets[b + 1] - offsets[b]));
+
+        int[] candidates = Arrays.copyOfRange(postings, offsets[order[0]], offsets[order[0] + 1]);
+        int candidateCount = candidates.length;
+        for (int i = 1; i < listCount && candidateCount > 0; i++) {
+            candidateCount = intersect(candidates, candidateCount, offsets[order[i]], offsets[order[i] + 1]);
+        }
+
+        // sharing all trigrams does not mean they are consecutive
+        return verify(candidates, candidateCount, lowerCaseTerm);
+    }
+
+    /**
+     * Keeps the candidates that are contained in the given posting range, in place.
+     * The range is searched from the last match onward, as both are ascending.
+     *
+     * @return the number of remaining candidates
+     */
+    private int intersect(int[] candidates, int candidateCount, int from, int to) {
+        int kept = 0;
+        int position = from;
+        for (int i = 0; i < candidateCount && position < to; i++) {
+            int found = Arrays.binarySearch(postings, position, to, candidates[i]);
+            if (found >= 0) {
+                candidates[kept++] = candidates[i];
+                position = found + 1;
+            } else {
+                position = -found - 1;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * @param candidates ascending pre-order numbers to verify, null for all nodes
+     * @param candidateCount the number of candidates
+     * @param lowerCaseTerm the lower case term
+     * @return the candidates whose lower case names contain the term
+     */
+    private int[] verify(int[] candidates, int candidateCount, String lowerCaseTerm) {
+        int[] hits = new int[candidateCount];
+        int hitCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int node = candidates == null ? i : candidates[i];
+            if (lowerCaseNames[node].contains(lowerCaseTerm)) hits[hitCount++] = node;
+        }
+        return Arrays.copyOf(hits, hitCount);
+    }
+}
@@ -0,0 +1,226 @@
+package explorer.model.treetools;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
+/**
+ * Streaming Newick export and import of ConceptNode trees.
+ * <p>
+ * Both directions work iteratively with explicit stacks and directly on an {@link Appendable} / {@link Reader},
+ * so neither deep trees nor large files need the whole tree as one String in memory.
+ * Node names are written as Newick labels: names containing whitespace, underscores or one of the Newick
+ * meta characters {@code ()[]':;,} are single-quoted (inner quotes doubled), all others are written as they are.
+ * </p>
+ * The parser accepts the usual Newick dialect of phylogenetics tools: quoted and unquoted labels (underscores in
+ * unquoted labels are read as spaces), optional branch lengths (ignored) and {@code [comments]} (ignored).
+ * Parsed nodes only carry their name, the concept ID is null and the list of file IDs is empty.
+ */
+public class NewickFormat {
+
+    private static final String META_CHARACTERS = "()[]':;,";
+
+    /**
+     * Writes the tree rooted at the given node in Newick format, terminated by a semicolon.
+     *
+     * @param root the root of the tree to write
+     * @param out the target, e.g. a StringBuilder or a buffered Writer; it is neither flushed nor closed
+     * @throws IOException if appending to the target fails
+     */
+    public static void write(ConceptNode root, Appendable out) throws IOException {
+        // explicit stack of (node, index of the next child to write)
+        Deque<ConceptNode> nodes = new ArrayDeque<>();
+        Deque<int[]> nextChild = new ArrayDeque<>();
+        nodes.push(root);
+        nextChild.push(new int[]{0});
+
+        while (!nodes.isEmpty()) {
+            ConceptNode node = nodes.peek();
+            int[] next = nextChild.peek();
+
+            if (node.isLeaf()) {
+                writeLabel(node.getName(), out);
+                nodes.pop();
+                nextChild.pop();
+                continue;
+            }
+
+            ArrayList<ConceptNode> children = node.getChildren();
+            if (next[0] < children.size()) {
+                out.append(next[0] == 0 ? '(' : ',');
+                nodes.push(children.get(next[0]++));
+                nextChild.push(new int[]{0});
+            } else {
+                out.append(')');
+                writeLabel(node.getName(), out);
+                nodes.pop();
+                nextChild.pop();
+            }
+        }
+        out.append(';');
+    }
+
+    /**
+     * Writes a name as Newick label, quoted if necessary.
+     */
+    private static void writeLabel(String name, Appendable out) throws IOException {
+        if (name == null || name.isEmpty()) return;
+        if (!needsQuotes(name)) {
+            out.append(name);
+            return;
+        }
+        out.append('\'');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '\'') out.append('\'');
+            out.append(c);
+        }
+        out.append('\'');
+    }
+
+    private static boolean needsQuotes(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c) || c == '_' || META_CHARACTERS.indexOf(c) >= 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads one Newick tree (up to and including its terminating semicolon) from the reader.
+     * The reader is not closed and can be used to read further trees.
+     *
+     * @param reader the source, ideally buffered
+     * @return the root of the parsed tree
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if the input is not a valid Newick tree
+     */
+    public static ConceptNode parse(Reader reader) throws IOException {
+        return new Parser(reader).parse();
+    }
+
+    /**
+     * Single-pass parser keeping the children lists of all open parentheses on a stack.
+     */
+    private static class Parser {
+        private final Reader reader;
+        private int lookahead = -2; // -2: nothing buffered
+        private long position = 0;
+
+        private Parser(Reader reader) {
+            this.reader = reader;
+        }
+
+        private int read() throws IOException {
+            int c;
+            if (lookahead != -2) {
+                c = lookahead;
+                lookahead = -2;
+            } else {
+                c = reader.read();
+            }
+            if (c != -1) position++;
+            return c;
+        }
+
+        private void unread(int c) {
+            lookahead = c;
+            if (c != -1) position--;
+        }
+
+        private ConceptNode parse() throws IOException {
+            Deque<ArrayList<ConceptNode>> open = new ArrayDeque<>();
+            // last completed node, it may still get its label or branch length
+            ConceptNode current = null;
+
+            int c;
+            while ((c = read()) != -1) {
+                switch (c) {
+                    case '(' -> {
+                        if (current != null) throw error("unexpected '('");
+                        open.push(new ArrayList<>());
+                    }
+                    case ',' -> {
+                        if (open.isEmpty()) throw error("',' outside of parentheses");
+                        open.peek().add(current != null ? current : node(null, new ArrayList<>()));
+                        current = null;
+                    }
+                    case ')' -> {
+                        if (open.isEmpty()) throw error("unbalanced ')'");
+                        ArrayList<ConceptNode> children = open.pop();
+                        children.add(current != null ? current : node(null, new ArrayList<>()));
+                        current = node(null, children);
+                    }
+                    case ';' -> {
+                        if (!open.isEmpty()) throw error("missing ')'");
+                        return current != null ? current : node(null, new ArrayList<>());
+                    }
+                    case ':' -> skipBranchLength();
+                    case '[' -> skipComment();
+                    default -> {
+                        if (Character.isWhitespace(c)) continue;
+                        unread(c);
+                        String label = readLabel();
+                        if (current == null) {
+                            current = node(label, new ArrayList<>());
+                        } else if (current.getName() == null) {
+                            current.setName(label);
+                        } else {
+                            throw error("unexpected label '" + label + "'");
+                        }
+                    }
+                }
+            }
+            throw error("missing ';'");
+        }
+
+        private static ConceptNode node(String name, ArrayList<ConceptNode> children) {
+            return new ConceptNode(null, name, children, new ArrayList<>());
+        }
+
+        private String readLabel() throws IOException {
+            StringBuilder label = new StringBuilder();
+            int c = read();
+            if (c == '\'') {
+                while (true) {
+                    c = read();
+                    if (c == -1) throw error("unterminated quoted label");
+                    if (c == '\'') {
+                        int following = read();
+                        if (following != '\'') {
+                            unread(following);
+                            return label.toString();
+                        }
+                    }
+                    label.append((char) c);
+                }
+            }
+            while (c != -1 && !Character.isWhitespace(c) && META_CHARACTERS.indexOf(c) < 0) {
+                label.append(c == '_' ? ' ' : (char) c);
+                c = read();
+            }
+            unread(c);
+            return label.toString();
+        }
+
+        private void skipBranchLength() throws IOException {
+            int c = read();
+            while (c != -1 && (Character.isWhitespace(c))) c = read();
+            while (c != -1 && !Character.isWhitespace(c) && "(),;[".indexOf(c) < 0) c = read();
+            unread(c);
+        }
+
+        private void skipComment() throws IOException {
+            int c;
+            while ((c = read()) != ']') {
+                if (c == -1) throw error("unterminated comment");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid Newick at character " + position + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package explorer.model.treetools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Regular expression search over the concept names of one tree, guarded against slow patterns.
+ * <p>
+ * Literals every match has to contain ({@link #requiredLiterals(String)}) are looked up in the trigram index of
+ * the names ({@link NameIndex}) first, so the pattern itself only runs on names containing all of them.
+ * The pattern runs on the names through a CharSequence that checks a deadline and a cancellation flag while the
+ * matcher reads it, so even catastrophic backtracking on a single name ends at the deadline.
+ * </p>
+ * Hits are returned in pre-order, like {@link NameIndex#find(String)}.
+ */
+public final class RegexSearch {
+
+    // chars read between two checks of the clock
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * Thrown if a search does not finish within its time limit.
+     */
+    public static final class TimeLimitException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private TimeLimitException(String message) {
+            super(message);
+        }
+    }
+
+    private RegexSearch() {
+    }
+
+    /**
+     * Finds all nodes whose names contain a match of the pattern.
+     *
+     * @param treeIndex the index of the tree to search
+     * @param pattern the pattern
+     * @param timeLimitNanos the time the whole search may take
+     * @param cancelled checked while searching, e.g. whether the search was superseded
+     * @return the pre-order numbers of the hits, ascending
+     * @throws TimeLimitException if the search takes longer than the time limit
+     * @throws CancellationException if the search was cancelled
+     */
+    public static int[] find(TreeIndex treeIndex, Pattern pattern, long timeLimitNanos, BooleanSupplier cancelled) {
+        Guard guard = new Guard(System.nanoTime() + timeLimitNanos, timeLimitNanos, cancelled);
+        // in comments mode whitespace of the pattern is no literal
+        List<String> literals = (pattern.flags() & (Pattern.COMMENTS | Pattern.LITERAL)) == 0
+                ? requiredLiterals(pattern.pattern()) : List.of();
+        int[] candidates = candidates(NameIndex.of(treeIndex), literals);
+        int candidateCount = candidates == null ? treeIndex.size() : candidates.length;
+
+        int[] hits = new int[candidateCount];
+        int hitCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int node = candidates == null ? i : candidates[i];
+            String name = treeIndex.node(node).getName();
+            if (name == null) continue;
+            guard.check();
+            if (pattern.matcher(new GuardedCharSequence(name, guard)).find()) hits[hitCount++] = node;
+        }
+        return Arrays.copyOf(hits, hitCount);
+    }
+
+    /**
+     * @return the ascending nodes whose names contain all literals of at least three chars, ignoring case,
+     * null if there is no such literal
+     */
+    private static int[] candidates(NameIndex nameIndex, List<String> literals) {
+        int[] candidates = null;
+        for (String literal : literals) {
+            if (literal.length() < 3) continue;
+            int[] containing = nameIndex.find(literal);
+            candidates = candidates == null ? containing : intersect(candidates, containing);
+            if (candidates.length == 0) break;
+        }
+        return candidates;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Extracts literals that every match of the pattern contains, ignoring case as the {@link NameIndex} does.
+     * The analysis is conservative: a pattern with a top level alternation, the comments flag or
+     * literals outside of ASCII yields no (or fewer) literals, and groups, character classes and quantified chars
+     * only end the current literal.
+     *
+     * @param regex a valid regular expression
+     * @return the required literals, possibly empty
+     */
+    public static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '|' -> {
+                    // one of the alternatives suffices, no literal is required
+                    return List.of();
+                }
+                case '(' -> {
+                    if (hasCommentsFlag(regex, i)) return List.of();
+                    flush(current, literals);
+                    i = skipGroup(regex, i);
+                    continue;
+                }
+                case '[' -> {
+                    flush(current, literals);
+                    i = skipClass(regex, i);
+                    continue;
+                }
+                case '\\' -> {
+                    if (i + 1 >= regex.length()) return literals;
+                    char escaped = regex.charAt(i + 1);
+                    if (escaped == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        String quoted = regex.substring(i + 2, end < 0 ? regex.length() : end);
+                        i = end < 0 ? regex.length() : end + 2;
+                        // a quantifier only applies to the last quoted char
+                        appendLiteral(current, literals, quoted, regex, i);
+                        continue;
+                    }
+                    if (Character.isLetterOrDigit(escaped)) {
+                        // \\d, \\w, \\b, \\u0041, back references etc. are no literals, nor are their arguments
+                        flush(current, literals);
+                        i = skipEscape(regex, i);
+                        continue;
+                    }
+                    i += 2;
+                    appendLiteral(current, literals, String.valueOf(escaped), regex, i);
+                    continue;
+                }
+                case '.', '^', '$', '*', '+', '?', '{', ')', ']', '}' -> {
+                    flush(current, literals);
+                    i = c == '{' ? skipBraces(regex, i) : i + 1;
+                    continue;
+                }
+                default -> {
+                    i++;
+                    appendLiteral(current, literals, String.valueOf(c), regex, i);
+                    continue;
+                }
+            }
+        }
+        flush(current, literals);
+        return literals;
+    }
+
+    /**
+     * Appends literal chars to the current literal, taking the quantifier following them into account.
+     * A char that may be repeated ends the literal after it, a char that may be missing is dropped.
+     *
+     * @param next the position after the chars in the pattern
+     */
+    private static void appendLiteral(StringBuilder current, List<String> literals, String chars, String regex,
+                                      int next) {
+        for (int j = 0; j < chars.length(); j++) {
+            if (chars.charAt(j) > 0x7F) {
+                // lower casing of non ASCII chars may differ between the pattern and the names
+                flush(current, literals);
+                return;
+            }
+        }
+        char quantifier = next < regex.length() ? regex.charAt(next) : 0;
+        boolean optional = quantifier == '?' || quantifier == '*'
+                || (quantifier == '{' && regex.startsWith("{0", next));
+        boolean repeated = quantifier == '+' || quantifier == '*' || quantifier == '{';
+        if (optional || repeated) {
+            current.append(chars, 0, chars.length() - 1);
+            if (!optional) current.append(chars.charAt(chars.length() - 1));
+            flush(current, literals);
+        } else {
+            current.append(chars);
+        }
+    }
+
+    private static void flush(StringBuilder current, List<String> literals) {
+        if (!current.isEmpty()) literals.add(current.toString());
+        current.setLength(0);
+    }
+
+    /**
+     * @return true if the group at the given position sets the comments flag, in which whitespace is ignored
+     */
+    private static boolean hasCommentsFlag(String regex, int start) {
+        if (!regex.startsWith("(?", start)) return false;
+        for (int i = start + 2; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == 'x') return true;
+            if (!Character.isLetter(c) && c != '-') return false;
+        }
+        return false;
+    }
+
+    /**
+     * @return the position after the group starting at the given position
+     */
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i = skipEscape(regex, i);
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+                continue;
+            }
+            if (c == '(') depth++;
+            if (c == ')' && --depth == 0) return i + 1;
+            i++;
+        }
+        return regex.length();
+    }
+
+    /**
+     * @return the position after the character class starting at the given position
+     */
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i = skipEscape(regex, i);
+                continue;
+            }
+            if (c == '[') depth++;
+            // a ']' right after the opening bracket (or its negation) is a literal
+            if (c == ']' && i > start + 1 && !(i == start + 2 && regex.charAt(start + 1) == '^')) {
+                if (--depth == 0) return i + 1;
+            }
+            i++;
+        }
+        return regex.length();
+    }
+
+    /**
+     * @return the position after the escape starting at the given position, including its argument, e.g. the hex
+     * digits of a unicode escape, the name of a named back reference or the quoted chars of a quotation
+     */
+    private static int skipEscape(String regex, int start) {
+        if (start + 1 >= regex.length()) return regex.length();
+        int i = start + 2;
+        switch (regex.charAt(start + 1)) {
+            case 'u' -> i += 4;
+            case 'x' -> i = regex.startsWith("{", i) ? skipBraces(regex, i) : i + 2;
+            case 'p', 'P', 'N' -> i = regex.startsWith("{", i) ? skipBraces(regex, i) : i + 1;
+            case 'c' -> i += 1;
+            case 'k' -> {
+                int end = regex.indexOf('>', i);
+                i = end < 0 ? regex.length() : end + 1;
+            }
+            case 'Q' -> {
+                int end = regex.indexOf("\\E", i);
+                i = end < 0 ? regex.length() : end + 2;
+            }
+            case '0' -> {
+                for (int digits = 0; digits < 3 && i < regex.length() && regex.charAt(i) >= '0'
+                        && regex.charAt(i) <= '7'; digits++) {
+                    i++;
+                }
+            }
+            case '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                // back reference: its number may continue with further digits
+                while (i < regex.length() && Character.isDigit(regex.charAt(i))) i++;
+            }
+            default -> {
+            }
+        }
+        return Math.min(i, regex.length());
+    }
+
+    /**
+     * @return the position after the braces starting at the given position, e.g. of a repetition {n,m}
+     */
+    private static int skipBraces(String regex, int start) {
+        int end = regex.indexOf('}', start);
+        return end < 0 ? regex.length() : end + 1;
+    }
+
+    /**
+     * Deadline and cancellation flag of one search, checked every {@link #CHECK_INTERVAL} chars.
+     */
+    private static final class Guard {
+        private final long deadline;
+        private final long timeLimitNanos;
+        private final BooleanSupplier cancelled;
+        private int reads = 0;
+
+        private Guard(long deadline, long timeLimitNanos, BooleanSupplier cancelled) {
+            this.deadline = deadline;
+            this.timeLimitNanos = timeLimitNanos;
+            this.cancelled = cancelled;
+        }
+
+        private void read() {
+            if (++reads == CHECK_INTERVAL) {
+                reads = 0;
+                check();
+            }
+        }
+
+        private void check() {
+            if (cancelled.getAsBoolean()) throw new CancellationException("Regex search cancelled");
+            if (System.nanoTime() - deadline > 0) {
+                throw new TimeLimitException(
+                        "Regex search aborted after " + timeLimitNanos / 1_000_000 + " ms, the pattern is too slow");
+            }
+        }
+    }
+
+    /**
+     * CharSequence view of a name that lets the guard check the deadline while a matcher reads it.
+     */
+    private record GuardedCharSequence(String text, Guard guard) implements CharSequence {
+        @Override
+        public char charAt(int index) {
+            guard.read();
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new GuardedCharSequence(text.substring(start, end), guard);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
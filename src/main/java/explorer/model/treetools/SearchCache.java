@@ -0,0 +1,97 @@
+package explorer.model.treetools;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Least recently used cache of the hits of recent searches in one tree, per search term and {@link SearchMode}.
+ * <p>
+ * Besides answering repeated searches, e.g. when deleting the last typed chars, the cache provides candidates
+ * for refining a plain search ({@link #candidatesFor(String)}): every name containing "muscl" contains "mus",
+ * so a search for "muscl" only has to test the cached hits of "mus".
+ * </p>
+ * The cache of a tree is created on first request and shared, see {@link #of(TreeIndex)}. As the tree must not be
+ * modified after its index was built, the cached hits stay valid as long as the tree is used; a changed model is a
+ * new tree with a new, empty cache.
+ */
+public final class SearchCache {
+
+    // number of searches cached per tree
+    private static final int CAPACITY = 64;
+
+    // tree -> search cache of the tree, weak keys such that dropped trees do not keep their cache alive
+    private static final Map<TreeIndex, SearchCache> caches = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private record Key(SearchMode mode, String term) {}
+
+    // in access order, the eldest entry is evicted once the capacity is exceeded
+    private final Map<Key, int[]> hits = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    /**
+     * Returns the search cache of the given tree, creating it on first request.
+     *
+     * @param treeIndex the index of the tree
+     * @return the shared search cache of the tree
+     */
+    public static SearchCache of(TreeIndex treeIndex) {
+        synchronized (caches) {
+            return caches.computeIfAbsent(treeIndex, key -> new SearchCache());
+        }
+    }
+
+    private SearchCache() {
+    }
+
+    /**
+     * @return the key of the search, the term in lower case for the modes that ignore case
+     */
+    private static Key key(SearchMode mode, String term) {
+        return new Key(mode, mode == SearchMode.REGEX ? term : term.toLowerCase());
+    }
+
+    /**
+     * @param mode how the term was matched
+     * @param term the search term
+     * @return the cached hits of the search, which must not be modified, null if not cached
+     */
+    public synchronized int[] get(SearchMode mode, String term) {
+        return hits.get(key(mode, term));
+    }
+
+    /**
+     * Caches the complete hits of a search, evicting the least recently used search if the cache is full.
+     *
+     * @param mode how the term was matched
+     * @param term the search term
+     * @param hits the hits, which must not be modified afterward
+     */
+    public synchronized void put(SearchMode mode, String term, int[] hits) {
+        this.hits.put(key(mode, term), hits);
+    }
+
+    /**
+     * Returns the fewest cached hits of a plain search for a term contained in the given one. The hits of the
+     * given term are a subset of them.
+     *
+     * @param lowerCaseTerm a plain search term in lower case
+     * @return ascending candidates for the hits of the term, null if no contained term is cached
+     */
+    public synchronized int[] candidatesFor(String lowerCaseTerm) {
+        int[] candidates = null;
+        for (Map.Entry<Key, int[]> entry : hits.entrySet()) {
+            Key key = entry.getKey();
+            if (key.mode() == SearchMode.PLAIN && lowerCaseTerm.contains(key.term())
+                    && (candidates == null || entry.getValue().length < candidates.length)) {
+                candidates = entry.getValue();
+            }
+        }
+        return candidates;
+    }
+}
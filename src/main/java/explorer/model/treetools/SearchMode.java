@@ -0,0 +1,19 @@
+package explorer.model.treetools;
+
+/**
+ * How a search term is matched against concept names.
+ */
+public enum SearchMode {
+    /**
+     * The name contains the term, ignoring case, see {@link NameIndex}.
+     */
+    PLAIN,
+    /**
+     * The name contains a match of the term as regular expression, see {@link RegexSearch}.
+     */
+    REGEX,
+    /**
+     * The name approximately contains the words of the term, ignoring case, see {@link FuzzyNameIndex}.
+     */
+    FUZZY
+}
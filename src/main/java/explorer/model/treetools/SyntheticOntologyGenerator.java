@@ -0,0 +1,176 @@
+package explorer.model.treetools;
+
+import explorer.model.KryoUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates synthetic isA and partOf trees plus a matching set of OBJ meshes for scaling tests.
+ * <p>
+ * The trees grow by preferential attachment: every new concept becomes the child of an existing concept chosen
+ * with probability proportional to {@code children + offset}, which yields the power law node degree
+ * distribution of the NodeDegree tab (exponent about {@code 2 + offset}). Concepts at the maximal depth never
+ * receive children. Every leaf of the isA tree gets a mesh of its own, the leaves of the partOf tree reuse
+ * these meshes, and every internal concept is associated with all meshes of its subtree (as in BodyParts3D).
+ * </p>
+ * The output folder mirrors the resource layout, so putting it in front of the resources on the class path
+ * feeds the existing loaders unchanged; the meshes folder is chosen as OBJ folder in the explorer:
+ * <pre>
+ *   OUT/serializedTrees/{isA,partOf}_tree.{kryo,lazy}
+ *   OUT/serializedMaps/{isA,partOf}_NodeDegrees.kryo
+ *   OUT/meshes/SYNFJ*.obj
+ * </pre>
+ * Usage: {@code SyntheticOntologyGenerator SCALE OUT [maxDepth] [offset] [seed] [--no-meshes]},
+ * where SCALE multiplies the sizes of the bundled trees (2905 isA and 1368 partOf concepts).
+ */
+class SyntheticOntologyGenerator {
+
+    private static final int ISA_SIZE = 2905;
+    private static final int PARTOF_SIZE = 1368;
+
+    /**
+     * Generates both trees, their node degree maps and (unless disabled) the meshes.
+     *
+     * @param args SCALE OUT [maxDepth] [offset] [seed] [--no-meshes]
+     * @throws IOException if the output can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticOntologyGenerator SCALE OUT [maxDepth] [offset] [seed] [--no-meshes]");
+            return;
+        }
+        double scale = Double.parseDouble(args[0]);
+        Path out = Path.of(args[1]);
+        int maxDepth = args.length > 2 && !args[2].startsWith("--") ? Integer.parseInt(args[2]) : 20;
+        int offset = args.length > 3 && !args[3].startsWith("--") ? Integer.parseInt(args[3]) : 1;
+        long seed = args.length > 4 && !args[4].startsWith("--") ? Long.parseLong(args[4]) : 42;
+        boolean meshes = !Arrays.asList(args).contains("--no-meshes");
+
+        Random random = new Random(seed);
+        Files.createDirectories(out.resolve("serializedTrees"));
+        Files.createDirectories(out.resolve("serializedMaps"));
+
+        // isA: one new mesh per leaf
+        ConceptNode isATree = generateTree("SYNISA", (int) Math.max(1, ISA_SIZE * scale), maxDepth, offset, random);
+        ArrayList<ConceptNode> isALeaves = leaves(isATree);
+        String[] fileIDs = new String[isALeaves.size()];
+        for (int i = 0; i < fileIDs.length; i++) {
+            fileIDs[i] = "SYNFJ" + i;
+            isALeaves.get(i).addFileID(fileIDs[i]);
+        }
+
+        // partOf: its leaves reuse the meshes of the isA leaves
+        ConceptNode partOfTree = generateTree("SYNPARTOF", (int) Math.max(1, PARTOF_SIZE * scale), maxDepth, offset,
+                random);
+        for (ConceptNode leaf : leaves(partOfTree)) {
+            leaf.addFileID(fileIDs[random.nextInt(fileIDs.length)]);
+        }
+
+        write(isATree, "isA", out);
+        write(partOfTree, "partOf", out);
+        if (meshes) writeMeshes(fileIDs, out.resolve("meshes"));
+
+        System.out.println("Generated " + TreeIndex.of(isATree).size() + " isA and " + TreeIndex.of(partOfTree).size()
+                + " partOf concepts with " + fileIDs.length + " meshes in " + out.toAbsolutePath());
+    }
+
+    /**
+     * Grows a tree of the given size by preferential attachment.
+     *
+     * @param prefix prefix of the generated concept IDs
+     * @param size number of concepts
+     * @param maxDepth maximal depth of a concept (root has depth 0), at least 1
+     * @param offset attachment weight of a concept without children, at least 1
+     * @param random source of randomness
+     * @return the root of the generated tree
+     */
+    static ConceptNode generateTree(String prefix, int size, int maxDepth, int offset, Random random) {
+        if (maxDepth < 1 || offset < 1) throw new IllegalArgumentException("maxDepth and offset have to be positive");
+        ConceptNode[] nodes = new ConceptNode[size];
+        int[] depths = new int[size];
+        nodes[0] = newConcept(prefix, 0);
+
+        // every concept appears offset times plus once per child, a uniform pick is a preferential pick
+        int[] attachment = new int[size * (offset + 1)];
+        int attachmentSize = 0;
+        for (int i = 0; i < offset; i++) attachment[attachmentSize++] = 0;
+
+        for (int concept = 1; concept < size; concept++) {
+            // concepts at the maximal depth are never added to the attachment array
+            int parent = attachment[random.nextInt(attachmentSize)];
+
+            nodes[concept] = newConcept(prefix, concept);
+            depths[concept] = depths[parent] + 1;
+            nodes[parent].addChild(nodes[concept]);
+
+            attachment[attachmentSize++] = parent;
+            if (depths[concept] < maxDepth) {
+                for (int i = 0; i < offset; i++) attachment[attachmentSize++] = concept;
+            }
+        }
+        return nodes[0];
+    }
+
+    private static ConceptNode newConcept(String prefix, int number) {
+        return new ConceptNode(prefix + number, "synthetic concept " + number, new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * @return all leaves of the tree in pre-order
+     */
+    private static ArrayList<ConceptNode> leaves(ConceptNode root) {
+        ArrayList<ConceptNode> leaves = new ArrayList<>();
+        TreeTraversal.traverse(root, TreeTraversal.Order.PRE_ORDER, (node, depth) -> {
+            if (node.isLeaf()) leaves.add(node);
+            return true;
+        });
+        return leaves;
+    }
+
+    /**
+     * Associates every internal concept with the meshes of its subtree and writes the tree in both layouts
+     * together with its node degree distribution.
+     */
+    private static void write(ConceptNode root, String name, Path out) {
+        TreeTraversal.traverse(root, TreeTraversal.Order.POST_ORDER, (node, depth) -> {
+            if (node.isLeaf()) return true;
+            LinkedHashSet<String> fileIDs = new LinkedHashSet<>(node.getFileIDs());
+            for (ConceptNode child : node.getChildren()) fileIDs.addAll(child.getFileIDs());
+            node.setFileIDs(new ArrayList<>(fileIDs));
+            return true;
+        });
+
+        KryoUtils.freezeTree(root, out.resolve("serializedTrees/" + name + "_tree.kryo").toString());
+        KryoUtils.freezeLazyTree(root, out.resolve("serializedTrees/" + name + "_tree.lazy").toString());
+        KryoUtils.freezeIntegerMap(TreeStatistics.of(TreeIndex.of(root), 0).normalizedDegreeDistribution(),
+                out.resolve("serializedMaps/" + name + "_NodeDegrees.kryo").toString());
+    }
+
+    /**
+     * Writes one small tetrahedron per fileID, placed on a cubic grid such that all meshes are visible.
+     */
+    private static void writeMeshes(String[] fileIDs, Path folder) throws IOException {
+        Files.createDirectories(folder);
+        int side = (int) Math.ceil(Math.cbrt(fileIDs.length));
+        for (int i = 0; i < fileIDs.length; i++) {
+            float x = (i % side) * 3f;
+            float y = (i / side % side) * 3f;
+            float z = (i / side / side) * 3f;
+            try (BufferedWriter writer = Files.newBufferedWriter(folder.resolve(fileIDs[i] + ".obj"))) {
+                writer.write(String.format(Locale.ROOT, "v %f %f %f%n", x, y, z));
+                writer.write(String.format(Locale.ROOT, "v %f %f %f%n", x + 1, y, z));
+                writer.write(String.format(Locale.ROOT, "v %f %f %f%n", x, y + 1, z));
+                writer.write(String.format(Locale.ROOT, "v %f %f %f%n", x, y, z + 1));
+                writer.write("f 1 3 2\nf 1 2 4\nf 1 4 3\nf 2 3 4\n");
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ class TreeBuilder {
     public static void main(String[] args) {
         serializeIsATree();
         serializePartOfTree();
+        serializeLazyTrees();
     }
 
     /**
@@ -56,6 +57,18 @@ class TreeBuilder {
         KryoUtils.freezeTree(tree, "src/main/resources/serializedTrees/partOf_tree.kryo");
     }
 
+    /**
+     * Converts both serialized trees into the lazily loadable layout (see LazyTreeFormat),
+     * which is the layout the TreeViews are loaded from.
+     */
+    private static void serializeLazyTrees() {
+        ConceptNode isATree = KryoUtils.thawTreeFromKryo("/serializedTrees/isA_tree.kryo");
+        KryoUtils.freezeLazyTree(isATree, "src/main/resources/serializedTrees/isA_tree.lazy");
+
+        ConceptNode partOfTree = KryoUtils.thawTreeFromKryo("/serializedTrees/partOf_tree.kryo");
+        KryoUtils.freezeLazyTree(partOfTree, "src/main/resources/serializedTrees/partOf_tree.lazy");
+    }
+
     private record Relation(String parentID, String parentName, String childID, String childName){}
 
     /**
@@ -128,9 +141,28 @@ class TreeBuilder {
         return IDtoFilelist;
     }
 
+    /**
+     * Constructs the concept graph of a list of relations and ConceptID to FileID mappings.
+     * Every concept is stored once, even if it has several parents.
+     *
+     * @param relations list of parent-child relations
+     * @param conceptIDToFileID map of ConceptID to FileIDs
+     * @return the graph of all concepts and relations
+     */
+    private static ConceptGraph createGraph(ArrayList<Relation> relations,
+                                            HashMap<String, ArrayList<String>> conceptIDToFileID) {
+        ConceptGraph.Builder builder = new ConceptGraph.Builder();
+        for (Relation relation : relations) {
+            builder.addRelation(relation.parentID(), relation.parentName(), relation.childID(), relation.childName());
+        }
+        conceptIDToFileID.forEach(builder::setFileIDs);
+        return builder.build();
+    }
+
     /**
      * Constructs a tree of AnatomyNode objects based on a list of relations and ConceptID to FileID mappings.
-     * Each node is connected to its parent and children based on the relation list.
+     * The tree is derived from the concept graph and fully loaded, such that it can be serialized.
+     * The serialized tree stores every path again, only building it scales with the number of concepts.
      *
      * @param relations list of parent-child relations
      * @param conceptIDToFileID map of ConceptID to FileIDs
@@ -142,28 +174,8 @@ class TreeBuilder {
     private static ConceptNode createTree(ArrayList<Relation> relations, HashMap<String,
             ArrayList<String>> conceptIDToFileID, String rootConceptID) {
 
-        HashMap<String, ConceptNode> idToNode = new HashMap<>();
-
-        for (Relation relation : relations) {
-            String parentID = relation.parentID();
-            String parentName = relation.parentName();
-            String childID = relation.childID();
-            String childName = relation.childName();
-
-            ConceptNode parentNode = idToNode.getOrDefault(parentID, new ConceptNode(parentID,
-                                                                                     parentName,
-                                                                                     new ArrayList<>(),
-                                                                                     conceptIDToFileID.get(parentID)));
-
-            ConceptNode childNode = idToNode.getOrDefault(childID, new ConceptNode(childID,
-                                                                                   childName,
-                                                                                   new ArrayList<>(),
-                                                                                   conceptIDToFileID.get(childID)));
-            parentNode.addChild(childNode);
-            idToNode.putIfAbsent(relation.parentID(), parentNode);
-            idToNode.putIfAbsent(relation.childID(), childNode);
-        }
-
-        return idToNode.get(rootConceptID);
+        ConceptNode root = createGraph(relations, conceptIDToFileID).deriveTree(rootConceptID);
+        if (root != null) root.loadSubtree();
+        return root;
     }
 }
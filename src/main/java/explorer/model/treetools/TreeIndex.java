@@ -0,0 +1,362 @@
+package explorer.model.treetools;
+
+import explorer.model.CompactBitSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Precomputed per-node statistics of one ConceptNode tree.
+ * <p>
+ * The index is built by a single iterative post-order pass over the whole tree and stores, for every node,
+ * its subtree size, number of leaves, height, depth and number of associated meshes in primitive arrays.
+ * Nodes are numbered in pre-order, such that the subtree of the node with number {@code i} consists of exactly
+ * the numbers {@code [i, i + subtreeSize(i))}. All statistics are O(1) lookups afterward.
+ * </p>
+ * <p>
+ * The pre-order intervals also answer ancestry in O(1) ({@link #isAncestor(int, int)}).
+ * </p>
+ * <p>
+ * Likewise on first request, every node gets the set of all mesh indices of its subtree
+ * ({@link #subtreeMeshes(int)}), such that mesh queries on subtrees are set operations instead of traversals.
+ * </p>
+ * The index of a tree is built once on first request and kept by the root node, see {@link #of(ConceptNode)}.
+ * Only whole trees are indexed, as every node holds its pre-order number in the one tree containing it.
+ * The tree must not be modified after its index was built.
+ */
+public class TreeIndex {
+
+    // all nodes in pre-order
+    private final ConceptNode[] nodes;
+
+    private final int[] parent;
+    private final int[] depth;
+    private final int[] subtreeSize;
+    private final int[] leafCount;
+    private final int[] height;
+    private final int[] meshCount;
+
+    // depth -> pre-order numbers of all nodes at that depth (ascending)
+    private final int[][] nodesAtDepth;
+
+    // pre-order number -> mesh indices (SymbolTable.FILE_IDS) of the whole subtree, built on demand
+    private volatile CompactBitSet[] subtreeMeshes;
+
+    /**
+     * Returns the index of the tree rooted at the given node, building it on first request.
+     * Lazily loaded trees are fully loaded for that.
+     * <p>
+     * The index is kept by the root, such that it lives exactly as long as the tree. Concurrent first requests
+     * for the same tree wait for one build, requests for other trees do not wait.
+     * </p>
+     *
+     * @param root the root of the tree
+     * @return the shared index of the tree
+     * @throws IllegalArgumentException if the node is part of another indexed tree or the tree contains the root
+     *                                  of another indexed tree, i.e. if the node is not the root of a whole tree
+     */
+    public static TreeIndex of(ConceptNode root) {
+        TreeIndex index = root.getIndexOfTree();
+        if (index != null) return index;
+        // the monitor of the root is also held while its children are loaded, which happens in the build anyway
+        synchronized (root) {
+            index = root.getIndexOfTree();
+            if (index == null) {
+                index = new TreeIndex(root);
+                root.setIndexOfTree(index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Builds the index by one iterative depth-first pass: pre-order numbers and depths are assigned when a node
+     * is entered, subtree size, leaves and height are aggregated into the parent when a node is left.
+     * The nodes get their pre-order numbers once the whole tree was visited.
+     *
+     * @param root the root of the tree to index
+     * @throws IllegalArgumentException if a node of the tree already got a number from another index
+     */
+    private TreeIndex(ConceptNode root) {
+        ArrayList<ConceptNode> order = new ArrayList<>();
+        int capacity = 1024;
+        int[] parent = new int[capacity];
+        int[] depth = new int[capacity];
+        int[] leafCount = new int[capacity];
+        int[] height = new int[capacity];
+        int[] meshCount = new int[capacity];
+        int[] subtreeSize = new int[capacity];
+
+        // explicit stack of (pre-order number, next child to visit)
+        int[] stackIndex = new int[64];
+        int[] stackNextChild = new int[64];
+        int stackSize = 0;
+
+        int maxDepth = 0;
+
+        // enter the root
+        order.add(root);
+        parent[0] = -1;
+        stackIndex[stackSize] = 0;
+        stackNextChild[stackSize++] = 0;
+
+        while (stackSize > 0) {
+            int current = stackIndex[stackSize - 1];
+            ConceptNode node = order.get(current);
+
+            if (stackNextChild[stackSize - 1] == 0) {
+                // first visit of the node -> local values
+                leafCount[current] = node.isLeaf() ? 1 : 0;
+                height[current] = 1;
+                meshCount[current] = node.getFileIDs() == null ? 0 : node.getFileIDs().size();
+                if (node.getTreeIndex() >= 0) {
+                    throw new IllegalArgumentException("Concept " + node.getConceptID()
+                            + " is part of another indexed tree, only whole trees can be indexed");
+                }
+            }
+
+            ArrayList<ConceptNode> children = node.getChildren();
+            int next = stackNextChild[stackSize - 1];
+            if (next < children.size()) {
+                stackNextChild[stackSize - 1]++;
+
+                // enter the child
+                int childIndex = order.size();
+                order.add(children.get(next));
+                if (childIndex == parent.length) {
+                    capacity = parent.length * 2;
+                    parent = Arrays.copyOf(parent, capacity);
+                    depth = Arrays.copyOf(depth, capacity);
+                    leafCount = Arrays.copyOf(leafCount, capacity);
+                    height = Arrays.copyOf(height, capacity);
+                    meshCount = Arrays.copyOf(meshCount, capacity);
+                    subtreeSize = Arrays.copyOf(subtreeSize, capacity);
+                }
+                parent[childIndex] = current;
+                depth[childIndex] = depth[current] + 1;
+                maxDepth = Math.max(maxDepth, depth[childIndex]);
+
+                if (stackSize == stackIndex.length) {
+                    stackIndex = Arrays.copyOf(stackIndex, stackSize * 2);
+                    stackNextChild = Arrays.copyOf(stackNextChild, stackSize * 2);
+                }
+                stackIndex[stackSize] = childIndex;
+                stackNextChild[stackSize++] = 0;
+            } else {
+                // leave the node -> all descendants got their pre-order number in the meantime
+                stackSize--;
+                subtreeSize[current] = order.size() - current;
+                int p = parent[current];
+                if (p >= 0) {
+                    leafCount[p] += leafCount[current];
+                    height[p] = Math.max(height[p], height[current] + 1);
+                }
+            }
+        }
+
+        int size = order.size();
+        this.nodes = order.toArray(new ConceptNode[0]);
+        for (int i = 0; i < size; i++) nodes[i].setTreeIndex(i);
+        this.parent = Arrays.copyOf(parent, size);
+        this.depth = Arrays.copyOf(depth, size);
+        this.leafCount = Arrays.copyOf(leafCount, size);
+        this.height = Arrays.copyOf(height, size);
+        this.meshCount = Arrays.copyOf(meshCount, size);
+        this.subtreeSize = Arrays.copyOf(subtreeSize, size);
+
+        // bucket the pre-order numbers by depth, ascending by construction
+        int[] perDepth = new int[maxDepth + 1];
+        for (int i = 0; i < size; i++) perDepth[this.depth[i]]++;
+        this.nodesAtDepth = new int[maxDepth + 1][];
+        for (int d = 0; d <= maxDepth; d++) nodesAtDepth[d] = new int[perDepth[d]];
+        Arrays.fill(perDepth, 0);
+        for (int i = 0; i < size; i++) {
+            int d = this.depth[i];
+            nodesAtDepth[d][perDepth[d]++] = i;
+        }
+    }
+
+    /**
+     * @return the number of nodes in the whole tree
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the root of the indexed tree
+     */
+    public ConceptNode getRoot() {
+        return nodes[0];
+    }
+
+    /**
+     * @param node a node of the indexed tree
+     * @return the pre-order number of the node, or -1 if the node is not part of the indexed tree
+     */
+    public int indexOf(ConceptNode node) {
+        if (node == null) return -1;
+        int index = node.getTreeIndex();
+        return index >= 0 && index < nodes.length && nodes[index] == node ? index : -1;
+    }
+
+    /**
+     * @param index a pre-order number
+     * @return the node with the given pre-order number
+     */
+    public ConceptNode node(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * @param index a pre-order number
+     * @return the pre-order number of the parent, -1 for the root
+     */
+    public int parent(int index) {
+        return parent[index];
+    }
+
+    /**
+     * @param index a pre-order number
+     * @return the number of edges between the node and the root (root has depth 0)
+     */
+    public int depth(int index) {
+        return depth[index];
+    }
+
+    /**
+     * @param index a pre-order number
+     * @return the number of nodes in the subtree of the node, including the node itself
+     */
+    public int subtreeSize(int index) {
+        return subtreeSize[index];
+    }
+
+    /**
+     * @param index a pre-order number
+     * @return the number of leaves in the subtree of the node
+     */
+    public int leafCount(int index) {
+        return leafCount[index];
+    }
+
+    /**
+     * Returns the height of the subtree, i.e. the number of nodes on the longest path from the node to a leaf.
+     * Same definition as {@link TreeUtils#horizontalTreeDepth(ConceptNode)}, a leaf has height 1.
+     *
+     * @param index a pre-order number
+     * @return the height of the subtree of the node
+     */
+    public int height(int index) {
+        return height[index];
+    }
+
+    /**
+     * @param index a pre-order number
+     * @return the number of meshes (file IDs) directly associated with the node
+     */
+    public int meshCount(int index) {
+        return meshCount[index];
+    }
+
+    /**
+     * Counts the nodes per depth in the subtree of the given node, relative to the node's depth.
+     * Uses binary searches in the per-depth pre-order lists, so the cost depends on the height of the
+     * subtree and not on its size.
+     *
+     * @param index a pre-order number
+     * @return array where entry {@code d} holds the number of subtree nodes with relative depth {@code d}
+     */
+    public int[] nodesPerDepth(int index) {
+        int[] counts = new int[height[index]];
+        int end = index + subtreeSize[index];
+        for (int d = 0; d < counts.length; d++) {
+            int[] level = nodesAtDepth[depth[index] + d];
+            counts[d] = lowerBound(level, end) - lowerBound(level, index);
+        }
+        return counts;
+    }
+
+    /**
+     * Checks whether a node lies in the subtree of another node, i.e. whether its pre-order number lies in the
+     * pre-order interval of the other node's subtree.
+     *
+     * @param ancestor pre-order number of the potential ancestor
+     * @param index pre-order number of the potential descendant
+     * @return true if {@code ancestor} is an ancestor of {@code index} or the node itself
+     */
+    public boolean isAncestor(int ancestor, int index) {
+        return ancestor <= index && index < ancestor + subtreeSize[ancestor];
+    }
+
+    /**
+     * @param index a pre-order number
+     * @return the pre-order numbers of the node, its parent, ... up to the root (in that order)
+     */
+    public int[] pathToRoot(int index) {
+        int[] path = new int[depth[index] + 1];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = index;
+            index = parent[index];
+        }
+        return path;
+    }
+
+    /**
+     * Returns the given nodes together with all of their ancestors, e.g. the nodes to show for a set of search hits.
+     * Every ancestor is visited once, as the walk up stops at the first node that is already part of the result.
+     *
+     * @param indices pre-order numbers
+     * @return the pre-order numbers of the nodes and their ancestors
+     */
+    public CompactBitSet withAncestors(int[] indices) {
+        boolean[] added = new boolean[nodes.length];
+        CompactBitSet.Builder result = new CompactBitSet.Builder();
+        for (int index : indices) {
+            for (int current = index; current >= 0 && !added[current]; current = parent[current]) {
+                added[current] = true;
+                result.add(current);
+            }
+        }
+        return result.build();
+    }
+
+    /**
+     * Returns the indices of all meshes associated with the node or any of its descendants.
+     *
+     * @param index a pre-order number
+     * @return the mesh indices (see {@link ConceptNode#getFileIndices()}) of the subtree
+     */
+    public CompactBitSet subtreeMeshes(int index) {
+        CompactBitSet[] sets = subtreeMeshes;
+        if (sets == null) {
+            sets = buildSubtreeMeshes();
+            // a concurrent build computes equal sets, so the last write may win
+            subtreeMeshes = sets;
+        }
+        return sets[index];
+    }
+
+    /**
+     * Builds the subtree mesh sets bottom-up: in reverse pre-order all children of a node are done before it.
+     */
+    private CompactBitSet[] buildSubtreeMeshes() {
+        CompactBitSet[] sets = new CompactBitSet[nodes.length];
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            CompactBitSet.Builder builder = new CompactBitSet.Builder().addAll(nodes[i].getFileIndices());
+            for (int child = i + 1; child < i + subtreeSize[i]; child += subtreeSize[child]) {
+                builder.addAll(sets[child]);
+            }
+            sets[i] = builder.build();
+        }
+        return sets;
+    }
+
+    /**
+     * @return the first position in the sorted array whose value is >= key
+     */
+    private static int lowerBound(int[] sorted, int key) {
+        int position = Arrays.binarySearch(sorted, key);
+        return position >= 0 ? position : -position - 1;
+    }
+}
@@ -0,0 +1,147 @@
+package explorer.model.treetools;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Node degree and depth histograms of a ConceptNode subtree, computed in parallel for large subtrees.
+ * <p>
+ * The computation runs on the ConceptNode model (not on TreeItems) and uses the pre-order numbering of the
+ * {@link TreeIndex}: a subtree is the contiguous pre-order range {@code [i, i + subtreeSize(i))}.
+ * The range is split in halves until the parts have at most {@link #FORK_THRESHOLD} nodes, each part is scanned
+ * by a task using the depth column of the index. As the split only depends on the size of the range, the nesting
+ * of tasks grows logarithmically with the subtree size, whatever the shape of the tree. The partial histograms are
+ * plain int arrays that are summed up when the tasks are joined.
+ * </p>
+ * Subtrees below the threshold (e.g. all of the shipped trees) are computed on the calling thread.
+ *
+ * @param nodeCount number of nodes in the subtree
+ * @param degreeCounts entry {@code k} holds the number of nodes with exactly {@code k} children
+ * @param depthCounts entry {@code d} holds the number of nodes at depth {@code d} relative to the subtree root
+ */
+public record TreeStatistics(int nodeCount, int[] degreeCounts, int[] depthCounts) {
+
+    /** Minimal size of a subtree to be computed in parallel, and maximal number of nodes scanned by one task. */
+    public static final int FORK_THRESHOLD = 8192;
+
+    /**
+     * Computes the statistics of the subtree rooted at the node with the given pre-order number.
+     *
+     * @param treeIndex the index of the tree containing the node
+     * @param index the pre-order number of the subtree root
+     * @return the statistics of the subtree
+     */
+    public static TreeStatistics of(TreeIndex treeIndex, int index) {
+        StatisticsTask task = new StatisticsTask(treeIndex, index, index + treeIndex.subtreeSize(index),
+                treeIndex.depth(index), treeIndex.height(index));
+        Histograms histograms = treeIndex.subtreeSize(index) < FORK_THRESHOLD
+                ? task.compute()
+                : ForkJoinPool.commonPool().invoke(task);
+        return new TreeStatistics(treeIndex.subtreeSize(index),
+                Arrays.copyOf(histograms.degrees, histograms.maxDegree + 1),
+                Arrays.copyOf(histograms.depths, treeIndex.height(index)));
+    }
+
+    /**
+     * @return the number of leaves in the subtree (nodes of degree 0)
+     */
+    public int leafCount() {
+        return degreeCounts.length == 0 ? 0 : degreeCounts[0];
+    }
+
+    /**
+     * Same as {@link TreeUtils#computeNormalizedNodeDegreeDistribution(javafx.scene.control.TreeItem)}.
+     *
+     * @return map from node degree to the fraction of subtree nodes with that degree, only degrees that occur
+     */
+    public Map<Integer, Double> normalizedDegreeDistribution() {
+        Map<Integer, Double> distribution = new HashMap<>();
+        for (int degree = 0; degree < degreeCounts.length; degree++) {
+            if (degreeCounts[degree] > 0) distribution.put(degree, (double) degreeCounts[degree] / nodeCount);
+        }
+        return distribution;
+    }
+
+    /**
+     * Partial histograms of one task.
+     */
+    private static class Histograms {
+        private int[] degrees = new int[16];
+        private int maxDegree = 0;
+        private final int[] depths;
+
+        private Histograms(int height) {
+            depths = new int[height];
+        }
+
+        private void addDegree(int degree) {
+            if (degree >= degrees.length) degrees = Arrays.copyOf(degrees, Math.max(degrees.length * 2, degree + 1));
+            degrees[degree]++;
+            if (degree > maxDegree) maxDegree = degree;
+        }
+
+        private void merge(Histograms other) {
+            for (int degree = 0; degree <= other.maxDegree; degree++) {
+                if (other.degrees[degree] == 0) continue;
+                if (degree >= degrees.length) degrees = Arrays.copyOf(degrees, Math.max(degrees.length * 2, degree + 1));
+                degrees[degree] += other.degrees[degree];
+            }
+            maxDegree = Math.max(maxDegree, other.maxDegree);
+            for (int depth = 0; depth < other.depths.length; depth++) {
+                depths[depth] += other.depths[depth];
+            }
+        }
+    }
+
+    /**
+     * Computes the histograms of a pre-order range of the subtree, splitting large ranges in halves.
+     */
+    private static class StatisticsTask extends RecursiveTask<Histograms> {
+        private static final long serialVersionUID = 1L;
+
+        // tasks are never serialized, the index only lives as long as the computation
+        private final transient TreeIndex treeIndex;
+        private final int from;
+        private final int to;
+        private final int baseDepth;
+        private final int height;
+
+        /**
+         * @param treeIndex the index of the tree
+         * @param from pre-order number of the first node of this task
+         * @param to pre-order number after the last node of this task
+         * @param baseDepth absolute depth that counts as depth 0 in the depth histogram
+         * @param height height of the statistics subtree, the size of the depth histogram
+         */
+        private StatisticsTask(TreeIndex treeIndex, int from, int to, int baseDepth, int height) {
+            this.treeIndex = treeIndex;
+            this.from = from;
+            this.to = to;
+            this.baseDepth = baseDepth;
+            this.height = height;
+        }
+
+        @Override
+        protected Histograms compute() {
+            if (to - from > FORK_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                StatisticsTask first = new StatisticsTask(treeIndex, from, middle, baseDepth, height);
+                first.fork();
+                Histograms histograms = new StatisticsTask(treeIndex, middle, to, baseDepth, height).compute();
+                histograms.merge(first.join());
+                return histograms;
+            }
+
+            // depth histogram sized for the whole statistics subtree, so partial results merge index by index
+            Histograms histograms = new Histograms(height);
+            for (int current = from; current < to; current++) {
+                histograms.addDegree(treeIndex.node(current).getChildren().size());
+                histograms.depths[treeIndex.depth(current) - baseDepth]++;
+            }
+            return histograms;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package explorer.model.treetools;
+
+import javafx.scene.control.TreeItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Iterative traversal core for all tree shaped structures of the explorer (ConceptNode trees and TreeItem trees).
+ * <p>
+ * All traversals use an explicit stack (or queue) instead of recursion, so they are safe on arbitrarily deep
+ * hierarchies and do not allocate a stack frame or lambda per visited node. Every visited node is passed
+ * together with its depth relative to the start node (start node has depth 0), and the visitor can stop the
+ * traversal early by returning false.
+ * </p>
+ * Children are visited in the order of their list, in every mode.
+ */
+public class TreeTraversal {
+
+    /**
+     * Order in which the nodes are visited.
+     */
+    public enum Order {
+        /** parent before its children */
+        PRE_ORDER,
+        /** children before their parent */
+        POST_ORDER,
+        /** all nodes of one depth before the nodes of the next depth */
+        LEVEL_ORDER
+    }
+
+    /**
+     * Called for every visited node.
+     *
+     * @param <N> the node type
+     */
+    @FunctionalInterface
+    public interface Visitor<N> {
+        /**
+         * @param node the visited node
+         * @param depth the depth of the node relative to the start node of the traversal
+         * @return true to continue the traversal, false to stop it
+         */
+        boolean visit(N node, int depth);
+    }
+
+    /**
+     * Traverses the ConceptNode tree rooted at the given node.
+     * Lazily deserialized children are loaded when the traversal reaches them.
+     *
+     * @param root the start node, nothing is visited if it is null
+     * @param order the visiting order
+     * @param visitor called for every visited node
+     * @return true if all nodes were visited, false if the visitor stopped the traversal
+     */
+    public static boolean traverse(ConceptNode root, Order order, Visitor<? super ConceptNode> visitor) {
+        return traverse(root, ConceptNode::getChildren, order, visitor);
+    }
+
+    /**
+     * Traverses the TreeItem tree rooted at the given item.
+     *
+     * @param root the start item, nothing is visited if it is null
+     * @param order the visiting order
+     * @param visitor called for every visited item
+     * @param <T> the value type of the items
+     * @return true if all items were visited, false if the visitor stopped the traversal
+     */
+    public static <T> boolean traverse(TreeItem<T> root, Order order, Visitor<? super TreeItem<T>> visitor) {
+        return traverse(root, TreeItem::getChildren, order, visitor);
+    }
+
+    /**
+     * Traverses an arbitrary tree rooted at the given node.
+     *
+     * @param root the start node, nothing is visited if it is null
+     * @param children returns the (possibly empty, never null) children of a node
+     * @param order the visiting order
+     * @param visitor called for every visited node
+     * @param <N> the node type
+     * @return true if all nodes were visited, false if the visitor stopped the traversal
+     */
+    public static <N> boolean traverse(N root, Function<? super N, ? extends List<? extends N>> children,
+                                       Order order, Visitor<? super N> visitor) {
+        if (root == null) return true;
+        return switch (order) {
+            case PRE_ORDER -> preOrder(root, children, visitor);
+            case POST_ORDER -> postOrder(root, children, visitor);
+            case LEVEL_ORDER -> levelOrder(root, children, visitor);
+        };
+    }
+
+    /**
+     * Pre-order with one stack of pending nodes: the children of a visited node are pushed in reverse order,
+     * such that the first child is popped next.
+     */
+    @SuppressWarnings("unchecked")
+    private static <N> boolean preOrder(N root, Function<? super N, ? extends List<? extends N>> children,
+                                        Visitor<? super N> visitor) {
+        Object[] nodes = new Object[64];
+        int[] depths = new int[64];
+        int size = 0;
+        nodes[size] = root;
+        depths[size++] = 0;
+
+        while (size > 0) {
+            N node = (N) nodes[--size];
+            int depth = depths[size];
+            nodes[size] = null;
+            if (!visitor.visit(node, depth)) return false;
+
+            List<? extends N> nodeChildren = children.apply(node);
+            int childCount = nodeChildren.size();
+            if (size + childCount > nodes.length) {
+                int capacity = Math.max(nodes.length * 2, size + childCount);
+                nodes = Arrays.copyOf(nodes, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+            }
+            for (int i = childCount - 1; i >= 0; i--) {
+                nodes[size] = nodeChildren.get(i);
+                depths[size++] = depth + 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Post-order with one frame per node on the current path: a node is visited once all of its children are done.
+     * The depth of a node equals its position on the stack.
+     */
+    @SuppressWarnings("unchecked")
+    private static <N> boolean postOrder(N root, Function<? super N, ? extends List<? extends N>> children,
+                                         Visitor<? super N> visitor) {
+        Object[] nodes = new Object[64];
+        List<?>[] nodeChildren = new List<?>[64];
+        int[] nextChild = new int[64];
+        int size = 0;
+        nodes[size] = root;
+        nodeChildren[size] = children.apply(root);
+        nextChild[size++] = 0;
+
+        while (size > 0) {
+            int top = size - 1;
+            List<?> topChildren = nodeChildren[top];
+            if (nextChild[top] < topChildren.size()) {
+                N child = (N) topChildren.get(nextChild[top]++);
+                if (size == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, size * 2);
+                    nodeChildren = Arrays.copyOf(nodeChildren, size * 2);
+                    nextChild = Arrays.copyOf(nextChild, size * 2);
+                }
+                nodes[size] = child;
+                nodeChildren[size] = children.apply(child);
+                nextChild[size++] = 0;
+            } else {
+                N node = (N) nodes[top];
+                nodes[top] = null;
+                nodeChildren[top] = null;
+                size--;
+                if (!visitor.visit(node, top)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Level-order, one level at a time: the depth is the number of completed levels.
+     */
+    private static <N> boolean levelOrder(N root, Function<? super N, ? extends List<? extends N>> children,
+                                          Visitor<? super N> visitor) {
+        List<N> level = new ArrayList<>();
+        List<N> nextLevel = new ArrayList<>();
+        level.add(root);
+
+        for (int depth = 0; !level.isEmpty(); depth++) {
+            for (N node : level) {
+                if (!visitor.visit(node, depth)) return false;
+                nextLevel.addAll(children.apply(node));
+            }
+            List<N> done = level;
+            level = nextLevel;
+            nextLevel = done;
+            nextLevel.clear();
+        }
+        return true;
+    }
+}
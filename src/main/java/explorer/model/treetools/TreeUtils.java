@@ -1,11 +1,22 @@
 package explorer.model.treetools;
 
+import javafx.scene.control.MultipleSelectionModel;
 import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
+import static explorer.model.treetools.TreeTraversal.Order.LEVEL_ORDER;
+import static explorer.model.treetools.TreeTraversal.Order.POST_ORDER;
+import static explorer.model.treetools.TreeTraversal.Order.PRE_ORDER;
+
 
 /**
  * Utility class providing common tree traversal and manipulation operations
@@ -18,16 +29,14 @@ public class TreeUtils {
      * Traverses the TreeView in pre-order starting from the given TreeItem.
      * Applies the provided function to each node during traversal.
      *
-     * @param item the starting TreeItem for traversal
+     * @param item the starting TreeItem for traversal, nothing is visited if it is null
      * @param function a Consumer function to be applied to each visited TreeItem
      */
     public static <T> void preOrderTreeViewTraversal(TreeItem<T> item, Consumer<TreeItem<T>> function) {
-        function.accept(item);
-        if (item != null) {
-            for (TreeItem<T> child : item.getChildren()) {
-                preOrderTreeViewTraversal(child, function);
-            }
-        }
+        TreeTraversal.traverse(item, PRE_ORDER, (node, depth) -> {
+            function.accept(node);
+            return true;
+        });
     }
 
     /**
@@ -37,21 +46,157 @@ public class TreeUtils {
      * @param item the TreeItem to be expanded, along with all its descendants
      */
     public static <T> void expandAllBelowGivenNode(TreeItem<T> item) {
-        preOrderTreeViewTraversal(item, node -> {
-            if (node != null) node.setExpanded(true);
-        });
+        preOrderTreeViewTraversal(item, node -> node.setExpanded(true));
     }
 
     /**
-     * Helper function to recursively collapse all nodes below the input node
+     * Helper function to recursively collapse all nodes below the input node.
+     * Lazily created child items (see {@link ConceptTreeItem}) that do not exist yet are not created.
      * @param item from which all nodes below get collapsed
      */
     public static <T> void collapseAllNodesUptToGivenNode(TreeItem<T> item) {
-        preOrderTreeViewTraversal(item, node -> {
-            if (node != null) node.setExpanded(false);
+        TreeTraversal.traverse(item, TreeUtils::existingChildren, PRE_ORDER, (node, depth) -> {
+            node.setExpanded(false);
+            return true;
+        });
+    }
+
+    /**
+     * Expands the given item and its descendants down to the given depth in one batch.
+     * <p>
+     * Every single {@code setExpanded} on an item of a displayed tree makes the TreeView and its selection and
+     * focus models recompute rows, which is quadratic for whole trees. Instead, the root is detached from the
+     * TreeView while the items are expanded, so the TreeView rebuilds its rows and cells once on reattaching.
+     * Selection and focus are restored afterward and the given item is scrolled into view.
+     * </p>
+     * Detaching fires selection change events, callers that listen to the selection should ignore them.
+     *
+     * @param treeView the TreeView displaying the item
+     * @param item the item to expand, nothing happens if it is null
+     * @param maxDepth items up to this depth below the given item become visible (1: only its children),
+     *                 {@link Integer#MAX_VALUE} expands the whole subtree
+     */
+    public static <T> void expandInBatch(TreeView<T> treeView, TreeItem<T> item, int maxDepth) {
+        if (item == null) return;
+        // level-order: all items above maxDepth are expanded before the first item at maxDepth is reached
+        updateInBatch(treeView, item, () -> TreeTraversal.traverse(item, LEVEL_ORDER, (node, depth) -> {
+            if (depth >= maxDepth) return false;
+            if (!node.isLeaf()) node.setExpanded(true);
+            return true;
+        }));
+    }
+
+    /**
+     * Collapses the given item and all of its descendants in one batch, see {@link #expandInBatch}.
+     *
+     * @param treeView the TreeView displaying the item
+     * @param item the item to collapse, nothing happens if it is null
+     */
+    public static <T> void collapseInBatch(TreeView<T> treeView, TreeItem<T> item) {
+        if (item == null) return;
+        updateInBatch(treeView, item, () -> collapseAllNodesUptToGivenNode(item));
+    }
+
+    /**
+     * Runs an update of the items of a TreeView while its root is detached, such that the TreeView rebuilds its
+     * rows once afterward. Selection and focus are restored where the items are still shown, and the given item
+     * is scrolled into view. See {@link #expandInBatch} for the background.
+     *
+     * @param treeView the TreeView whose items are updated
+     * @param item the item to scroll to afterward, null to scroll nowhere
+     * @param update the update of the items
+     */
+    public static <T> void updateInBatch(TreeView<T> treeView, TreeItem<T> item, Runnable update) {
+        TreeItem<T> root = treeView.getRoot();
+        MultipleSelectionModel<TreeItem<T>> selectionModel = treeView.getSelectionModel();
+        Set<TreeItem<T>> selectedItems = new HashSet<>(selectionModel.getSelectedItems());
+        TreeItem<T> focusedItem = treeView.getFocusModel().getFocusedItem();
+
+        treeView.setRoot(null);
+        update.run();
+        treeView.setRoot(root);
+
+        // one pass over the visible rows instead of one row lookup per selected item
+        int[] selectedRows = new int[selectedItems.size()];
+        int selectedCount = 0;
+        int focusedRow = -1;
+        boolean restore = !selectedItems.isEmpty() || focusedItem != null;
+        for (int row = 0; restore && row < treeView.getExpandedItemCount(); row++) {
+            TreeItem<T> rowItem = treeView.getTreeItem(row);
+            if (selectedItems.contains(rowItem)) selectedRows[selectedCount++] = row;
+            if (rowItem == focusedItem) focusedRow = row;
+        }
+        if (selectedCount > 0) {
+            selectionModel.selectIndices(selectedRows[0], Arrays.copyOfRange(selectedRows, 1, selectedCount));
+        }
+        if (focusedRow >= 0) treeView.getFocusModel().focus(focusedRow);
+
+        int itemRow = item == null ? -1 : treeView.getRow(item);
+        if (itemRow >= 0) treeView.scrollTo(itemRow);
+    }
+
+    /**
+     * Expands the collapsed ancestors of the given items in one batch (see {@link #updateInBatch}), such that all
+     * of them are shown, as {@link MultipleSelectionModel#select(Object)} does for a single item.
+     * Every ancestor is looked at once, however many of the items share it.
+     *
+     * @param treeView the TreeView displaying the items
+     * @param items the items to show, the first one is scrolled into view if an ancestor had to be expanded
+     */
+    public static <T> void revealInBatch(TreeView<T> treeView, List<TreeItem<T>> items) {
+        Set<TreeItem<T>> visited = new HashSet<>();
+        List<TreeItem<T>> collapsed = new ArrayList<>();
+        for (TreeItem<T> item : items) {
+            for (TreeItem<T> ancestor = item.getParent(); ancestor != null && visited.add(ancestor);
+                 ancestor = ancestor.getParent()) {
+                if (!ancestor.isExpanded()) collapsed.add(ancestor);
+            }
+        }
+        if (collapsed.isEmpty()) return;
+        updateInBatch(treeView, items.getFirst(), () -> {
+            for (TreeItem<T> ancestor : collapsed) ancestor.setExpanded(true);
         });
     }
 
+    /**
+     * Looks up the rows of several items, e.g. to select them with one {@link MultipleSelectionModel#selectIndices}
+     * call instead of one selection change per item. Every shown item costs one {@link TreeView#getRow} lookup;
+     * items that are not shown (below a collapsed ancestor, or hidden by a filter) get -1 without a lookup.
+     *
+     * @param treeView the TreeView displaying the items
+     * @param items the items to look up
+     * @return the row of every item in the order of the items, -1 for items that are not shown
+     */
+    public static <T> int[] rowsOf(TreeView<T> treeView, List<TreeItem<T>> items) {
+        int[] rows = new int[items.size()];
+        for (int i = 0; i < rows.length; i++) {
+            TreeItem<T> item = items.get(i);
+            rows[i] = isShown(treeView, item) ? treeView.getRow(item) : -1;
+        }
+        return rows;
+    }
+
+    /**
+     * @return true if the item belongs to the tree of the TreeView and all of its ancestors are expanded
+     */
+    private static <T> boolean isShown(TreeView<T> treeView, TreeItem<T> item) {
+        TreeItem<T> ancestor = item.getParent();
+        while (ancestor != null) {
+            if (!ancestor.isExpanded()) return false;
+            if (ancestor.getParent() == null) break;
+            ancestor = ancestor.getParent();
+        }
+        return (ancestor == null ? item : ancestor) == treeView.getRoot();
+    }
+
+    /**
+     * @return the children of the item, without creating the children of a lazily created item
+     */
+    private static <T> List<TreeItem<T>> existingChildren(TreeItem<T> item) {
+        if (item instanceof ConceptTreeItem lazyItem && !lazyItem.hasCreatedChildren()) return List.of();
+        return item.getChildren();
+    }
+
     /**
      * Traverses the tree in a post-order manner, starting from the given node and applies
      * the specified function to each node.
@@ -62,10 +207,10 @@ public class TreeUtils {
      * @param function a Consumer function to be applied to each node during traversal
      */
     public static void postOrderTraversal(ConceptNode node, Consumer<ConceptNode> function) {
-        for (ConceptNode child : node.getChildren()) {
-            postOrderTraversal(child, function);
-        }
-        function.accept(node);
+        TreeTraversal.traverse(node, POST_ORDER, (current, depth) -> {
+            function.accept(current);
+            return true;
+        });
     }
 
     /**
@@ -95,31 +240,25 @@ public class TreeUtils {
      * @return the maximum horizontal depth
      */
     public static int horizontalTreeDepth(ConceptNode conceptNode) {
-        if (conceptNode == null || conceptNode.getChildren().isEmpty()) {
-            return 1;
-        }
-
-        int maxDepth = 0;
-        for (ConceptNode child : conceptNode.getChildren()) {
-            int childDepth = horizontalTreeDepth(child);
-            if (childDepth > maxDepth) {
-                maxDepth = childDepth;
-            }
-        }
-
-        return 1 + maxDepth;
+        // the deepest node below determines the depth, the start node itself counts as one level
+        int[] maxDepth = {0};
+        TreeTraversal.traverse(conceptNode, PRE_ORDER, (node, depth) -> {
+            if (depth > maxDepth[0]) maxDepth[0] = depth;
+            return true;
+        });
+        return 1 + maxDepth[0];
     }
 
+    /**
+     * @param treeItem a TreeItem of a TreeView
+     * @return the number of ancestors of the item, 0 for the root
+     */
     public static <T> int calculateDepthToRoot(TreeItem<T> treeItem) {
-        return calculateDepthToRootRec(treeItem, 0);
-    }
-
-    private static <T> int calculateDepthToRootRec(TreeItem<T> treeItem, int currentDepth) {
-        if (treeItem.getParent() == null) {
-            return currentDepth;
-        } else {
-            return calculateDepthToRootRec(treeItem.getParent(), currentDepth + 1);
+        int depth = 0;
+        for (TreeItem<T> parent = treeItem.getParent(); parent != null; parent = parent.getParent()) {
+            depth++;
         }
+        return depth;
     }
 
     public static <T> int calculateTreeSize(TreeItem<T> treeItem) {
@@ -130,17 +269,13 @@ public class TreeUtils {
 
     public static Map<Integer, Integer> countNodesPerDepth(TreeItem<ConceptNode> root) {
         Map<Integer, Integer> depthCounts = new HashMap<>();
-        traverseDepth(root, 0, depthCounts);
+        TreeTraversal.traverse(root, PRE_ORDER, (node, depth) -> {
+            depthCounts.merge(depth, 1, Integer::sum);
+            return true;
+        });
         return depthCounts;
     }
 
-    private static void traverseDepth(TreeItem<ConceptNode> node, int depth, Map<Integer, Integer> depthCounts) {
-        depthCounts.put(depth, depthCounts.getOrDefault(depth, 0) + 1);
-        for (TreeItem<ConceptNode> child : node.getChildren()) {
-            traverseDepth(child, depth + 1, depthCounts);
-        }
-    }
-
     public static <T> Map<Integer, Double> computeNormalizedNodeDegreeDistribution(TreeItem<T> root) {
         Map<Integer, Double> degreeCounts = new HashMap<>();
         int[] currentSize = {0};
@@ -1,23 +1,59 @@
 package explorer.selection;
 
 import explorer.apptools.AppLogger;
+import explorer.model.SymbolTable;
+import explorer.window.vistools.HumanBodyMeshes;
 import javafx.collections.*;
 import javafx.scene.shape.MeshView;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
  * Manages selection state for a collection of MeshView objects in a human body model.
  * Allows selecting, deselecting, and listening for selection changes.
+ * <p>
+ * The selected meshes are kept twice: in an observable list in selection order, which carries the change
+ * events for the listeners, and in a dense bitset over the mesh indices (see {@link HumanBodyMeshes#indexOf}),
+ * which answers membership in O(1).
+ * </p>
+ * <p>
+ * Every modification runs as a batch: the bitset changes immediately, the list and the listeners get the net
+ * result (meshes whose state differs from the start of the batch) as exactly one change when the batch is
+ * committed. Callers that perform several modifications for one user action wrap them in
+ * {@link #batch(Runnable)} (or {@link #beginBatch()} / {@link #commitBatch()}), so listeners run once.
+ * Every emitted change is logged with the number of modifications it combines.
+ * </p>
+ * Meshes whose ID is no known file ID (see {@link SymbolTable#FILE_IDS}) are tracked by their ID in a set of
+ * their own, such that selecting them does not grow the global file ID table. Meshes without an ID can not be
+ * selected.
  */
 public class MeshSelectionManager {
 
     private final List<MeshView> allMeshes;
 
     // holds only selected mesh instances
-    private final ObservableList<MeshView> selectedMeshes = FXCollections.observableArrayList();
+    private final SelectionList selectedMeshes = new SelectionList();
+
+    // mesh index -> selected, ahead of selectedMeshes while a batch is open
+    private final BitSet selectedIndices = new BitSet();
+
+    // IDs of the selected meshes without a known file ID, ahead of selectedMeshes while a batch is open
+    private final Set<String> selectedUnknownIDs = new HashSet<>();
+
+    // state of the open batch
+    private int batchDepth = 0;
+    private BitSet selectedAtBatchStart = null;
+    private Set<String> selectedUnknownIDsAtBatchStart = null;
+    private final LinkedHashSet<MeshView> touchedMeshes = new LinkedHashSet<>();
+    private int batchModifications = 0;
+
+    private long changeEventCount = 0;
 
     /**
      * Constructs a MeshSelectionManager for managing selection of the given list of meshes.
@@ -57,6 +93,13 @@ public class MeshSelectionManager {
         return selectedMeshes.size();
     }
 
+    /**
+     * @return the number of change events fired to the listeners so far
+     */
+    public long getChangeEventCount() {
+        return changeEventCount;
+    }
+
     /**
      * Adds a listener to observe changes in the selected mesh list.
      *
@@ -68,6 +111,7 @@ public class MeshSelectionManager {
 
     /**
      * Returns an unmodifiable list of currently selected MeshView instances.
+     * While a batch is open, the list still shows the state before the batch.
      *
      * @return unmodifiable ObservableList of selected MeshView objects
      */
@@ -75,22 +119,83 @@ public class MeshSelectionManager {
         return FXCollections.unmodifiableObservableList(selectedMeshes);
     }
 
+    /**
+     * Runs all selection modifications of the given action as one batch, see {@link #beginBatch()}.
+     * Batches can be nested, the outermost batch emits the change.
+     *
+     * @param modifications the modifications to combine
+     */
+    public void batch(Runnable modifications) {
+        beginBatch();
+        try {
+            modifications.run();
+        } finally {
+            commitBatch();
+        }
+    }
+
+    /**
+     * Opens a batch: until the matching {@link #commitBatch()}, modifications are only accumulated.
+     * {@link #isSelected(MeshView)} reflects them immediately.
+     */
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            selectedAtBatchStart = (BitSet) selectedIndices.clone();
+            selectedUnknownIDsAtBatchStart = new HashSet<>(selectedUnknownIDs);
+        }
+    }
+
+    /**
+     * Closes a batch. Closing the outermost batch emits the net change of all its modifications as one change:
+     * first the removal of the deselected meshes, then the addition of the newly selected meshes in the order
+     * they were selected.
+     *
+     * @throws IllegalStateException if no batch is open
+     */
+    public void commitBatch() {
+        if (batchDepth == 0) throw new IllegalStateException("No selection batch to commit");
+        if (--batchDepth > 0) return;
+
+        Set<MeshView> removed = new HashSet<>();
+        List<MeshView> added = new ArrayList<>();
+        for (MeshView mesh : touchedMeshes) {
+            boolean before = isSelectedIn(selectedAtBatchStart, selectedUnknownIDsAtBatchStart, mesh);
+            boolean after = isSelectedIn(selectedIndices, selectedUnknownIDs, mesh);
+            if (before && !after) removed.add(mesh);
+            else if (!before && after) added.add(mesh);
+        }
+        int modifications = batchModifications;
+        touchedMeshes.clear();
+        selectedAtBatchStart = null;
+        selectedUnknownIDsAtBatchStart = null;
+        batchModifications = 0;
+
+        if (removed.isEmpty() && added.isEmpty()) return;
+        changeEventCount++;
+        AppLogger.getLogger().fine("Selection change " + changeEventCount + ": +" + added.size()
+                + " -" + removed.size() + " meshes from " + modifications + " modifications");
+        selectedMeshes.apply(removed, added);
+    }
+
     /**
      * Selects the specified mesh if it is not already selected.
      *
      * @param meshView the MeshView to select
      */
     public void select(MeshView meshView) {
-        if (!selectedMeshes.contains(meshView)) {
-            selectedMeshes.add(meshView);
-        }
+        if (meshView == null) return;
+        batch(() -> setSelected(meshView, true));
     }
 
     /**
      * Clears all selected meshes.
      */
     public void clearSelection() {
-        selectedMeshes.clear();
+        batch(() -> {
+            // meshes selected within an open batch are not in the list yet
+            for (MeshView mesh : new ArrayList<>(selectedMeshes)) setSelected(mesh, false);
+            for (MeshView mesh : new ArrayList<>(touchedMeshes)) setSelected(mesh, false);
+        });
     }
 
     /**
@@ -100,11 +205,19 @@ public class MeshSelectionManager {
      */
     public void deselect(MeshView meshView) {
         if (meshView == null) return;
-        selectedMeshes.remove(meshView);
+        batch(() -> setSelected(meshView, false));
     }
 
+    /**
+     * Deselects all provided meshes with a single change event.
+     *
+     * @param meshViews the list of MeshView objects to deselect; if null, does nothing
+     */
     public void deselectAll(List<MeshView> meshViews) {
-        selectedMeshes.removeAll(meshViews);
+        if (meshViews == null) return;
+        batch(() -> {
+            for (MeshView mesh : meshViews) setSelected(mesh, false);
+        });
     }
 
     /**
@@ -114,8 +227,7 @@ public class MeshSelectionManager {
      * @return true if the mesh is selected, false otherwise
      */
     public boolean isSelected(MeshView meshView) {
-        if (meshView == null) return false;
-        return selectedMeshes.contains(meshView);
+        return isSelectedIn(selectedIndices, selectedUnknownIDs, meshView);
     }
 
     /**
@@ -131,23 +243,22 @@ public class MeshSelectionManager {
      * Selects all meshes from the complete mesh list.
      */
     public void selectAll() {
-        List<MeshView> notSelectedYet = new ArrayList<>();
-        for (MeshView mesh : allMeshes) {
-            if (!selectedMeshes.contains(mesh)) {
-                notSelectedYet.add(mesh);
-            }
-        }
-        selectedMeshes.addAll(notSelectedYet);
+        batch(() -> {
+            for (MeshView mesh : allMeshes) setSelected(mesh, true);
+        });
     }
 
     /**
-     * Selects all provided meshes, adding them to the current selection.
+     * Selects all provided meshes, adding the ones not selected yet to the current selection
+     * with a single change event.
      *
      * @param meshViews the list of MeshView objects to select; if null, does nothing
      */
     public void selectAll(List<MeshView> meshViews) {
         if (meshViews == null) return;
-        selectedMeshes.addAll(meshViews);
+        batch(() -> {
+            for (MeshView mesh : meshViews) setSelected(mesh, true);
+        });
     }
 
     /**
@@ -157,8 +268,94 @@ public class MeshSelectionManager {
      */
     public void traverseUnselectedMeshes(Consumer<MeshView> function) {
         for (MeshView mesh : allMeshes) {
-            if (selectedMeshes.contains(mesh)) continue;
+            if (isSelected(mesh)) continue;
             function.accept(mesh);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Records a modification of the open batch.
+     */
+    private void setSelected(MeshView meshView, boolean selected) {
+        if (meshView == null || meshView.getId() == null) return;
+        int index = HumanBodyMeshes.indexOf(meshView);
+        if (index >= 0) {
+            if (selectedIndices.get(index) == selected) return;
+            selectedIndices.set(index, selected);
+        } else {
+            boolean changed = selected
+                    ? selectedUnknownIDs.add(meshView.getId())
+                    : selectedUnknownIDs.remove(meshView.getId());
+            if (!changed) return;
+        }
+        touchedMeshes.add(meshView);
+        batchModifications++;
+    }
+
+    /**
+     * @param indices the selected mesh indices
+     * @param unknownIDs the IDs of the selected meshes without a known file ID
+     * @return true if the mesh is selected in the given state, false for meshes without an ID
+     */
+    private static boolean isSelectedIn(BitSet indices, Set<String> unknownIDs, MeshView meshView) {
+        if (meshView == null || meshView.getId() == null) return false;
+        int index = HumanBodyMeshes.indexOf(meshView);
+        return index >= 0 ? indices.get(index) : unknownIDs.contains(meshView.getId());
+    }
+
+    /**
+     * Observable list of the selected meshes in selection order, which applies the net result of a batch
+     * as one change.
+     */
+    private static final class SelectionList extends ModifiableObservableListBase<MeshView> {
+        private final ArrayList<MeshView> meshes = new ArrayList<>();
+
+        @Override
+        public MeshView get(int index) {
+            return meshes.get(index);
+        }
+
+        @Override
+        public int size() {
+            return meshes.size();
+        }
+
+        @Override
+        protected void doAdd(int index, MeshView element) {
+            meshes.add(index, element);
+        }
+
+        @Override
+        protected MeshView doSet(int index, MeshView element) {
+            return meshes.set(index, element);
+        }
+
+        @Override
+        protected MeshView doRemove(int index) {
+            return meshes.remove(index);
+        }
+
+        /**
+         * Removes and appends meshes in one pass with one change event.
+         *
+         * @param removed the meshes to remove
+         * @param added the meshes to append
+         */
+        private void apply(Set<MeshView> removed, List<MeshView> added) {
+            beginChange();
+            // a removed mesh is reported at its index after all previous removals
+            int kept = 0;
+            for (int i = 0; i < meshes.size(); i++) {
+                MeshView mesh = meshes.get(i);
+                if (removed.contains(mesh)) nextRemove(kept, mesh);
+                else meshes.set(kept++, mesh);
+            }
+            meshes.subList(kept, meshes.size()).clear();
+            if (!added.isEmpty()) {
+                meshes.addAll(added);
+                nextAdd(kept, meshes.size());
+            }
+            endChange();
+        }
+    }
+}
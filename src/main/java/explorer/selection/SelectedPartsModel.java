@@ -0,0 +1,124 @@
+package explorer.selection;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Backing model of the "Selected Parts" ListView: one entry per selected part name with the selection color it
+ * was selected with.
+ * <p>
+ * The entries are keyed by name, so checking whether a name is listed does not scan the list, and every update
+ * changes the list with at most one bulk removal and two bulk insertions. The ListView renders the entries
+ * with {@link #createCell(ListView)}, so it only holds nodes for its visible cells.
+ * </p>
+ * Newly selected names are listed first; a name that is selected again while listed moves to the end and
+ * gets the new color.
+ */
+public class SelectedPartsModel {
+
+    /**
+     * One entry of the list.
+     *
+     * @param name the name of the selected part
+     * @param color the selection color at the time it was selected
+     */
+    public record Part(String name, Color color) {}
+
+    private final ObservableList<Part> parts = FXCollections.observableArrayList();
+
+    // name -> listed entry
+    private final Map<String, Part> partsByName = new HashMap<>();
+
+    /**
+     * @return unmodifiable list of the entries, to be set as items of a ListView
+     */
+    public ObservableList<Part> getParts() {
+        return FXCollections.unmodifiableObservableList(parts);
+    }
+
+    /**
+     * Applies one change of the selection. Removals are applied before additions.
+     *
+     * @param removedNames names of the deselected parts
+     * @param addedNames names of the selected parts, in selection order
+     * @param color the current selection color
+     */
+    public void update(Collection<String> removedNames, List<String> addedNames, Color color) {
+        Set<Part> toRemove = new HashSet<>();
+        for (String name : removedNames) {
+            Part part = partsByName.remove(name);
+            if (part != null) toRemove.add(part);
+        }
+
+        // name -> entry inserted by this update, keyed such that a name added again is found without a scan
+        Map<String, Part> front = new LinkedHashMap<>();
+        Map<String, Part> back = new LinkedHashMap<>();
+        for (String name : addedNames) {
+            Part part = new Part(name, color);
+            Part previous = partsByName.put(name, part);
+            if (previous == null) {
+                front.put(name, part);
+            } else {
+                // listed already (or added earlier in this update): move to the end with the new color
+                if (front.remove(name) == null && back.remove(name) == null) toRemove.add(previous);
+                back.put(name, part);
+            }
+        }
+        List<Part> toFront = new ArrayList<>(front.values());
+        List<Part> toBack = new ArrayList<>(back.values());
+        // the last selected name is listed first
+        Collections.reverse(toFront);
+
+        if (!toRemove.isEmpty()) parts.removeAll(toRemove);
+        if (!toFront.isEmpty()) parts.addAll(0, toFront);
+        if (!toBack.isEmpty()) parts.addAll(toBack);
+    }
+
+    /**
+     * Cell factory for a ListView showing the entries: name and a circle in the selection color.
+     *
+     * @param listView the ListView
+     * @return a new cell
+     */
+    public static ListCell<Part> createCell(ListView<Part> listView) {
+        return new PartCell();
+    }
+
+    /**
+     * Reuses its circle for every entry it displays.
+     */
+    private static final class PartCell extends ListCell<Part> {
+        private final Circle colorCircle = new Circle(5);
+
+        private PartCell() {
+            setGraphicTextGap(8);
+        }
+
+        @Override
+        protected void updateItem(Part part, boolean empty) {
+            super.updateItem(part, empty);
+            if (empty || part == null) {
+                setText(null);
+                setGraphic(null);
+            } else {
+                setText(part.name());
+                colorCircle.setFill(part.color());
+                setGraphic(colorCircle);
+            }
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package explorer.selection;
 
+import explorer.model.CompactBitSet;
+import explorer.model.MeshConceptIndex;
 import explorer.model.treetools.ConceptNode;
+import explorer.model.treetools.ConceptTreeItem;
+import explorer.model.treetools.TreeIndex;
 import explorer.model.treetools.TreeUtils;
 import explorer.window.vistools.HumanBodyMeshes;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableSet;
 import javafx.scene.control.*;
-import javafx.scene.shape.Circle;
 import javafx.scene.shape.MeshView;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Binds MeshView selection state between a MeshSelection model and multiple TreeView and ListView controls.
@@ -24,12 +26,15 @@ public class SelectionBinder {
     // Observable list of currently selected Meshes -> SourceOfTruth FOR ALL SELECTIONS
     MeshSelectionManager meshSelectionModel;
 
-    // connects fileID to a MeshView instance loaded from that fileID
-    private final ConcurrentHashMap<String, MeshView> fileIdToMeshMap;
+    // provides the MeshView instances by their fileID index
+    private final HumanBodyMeshes humanBodyMeshes;
 
     // maintain mapping from TreeView -> TreeViewBinding
     private final Map<TreeView<ConceptNode>, TreeViewBinding> treeViewBindings = new HashMap<>();
 
+    // mesh -> concept nodes of both trees, set once the meshes are loaded
+    private MeshConceptIndex meshConceptIndex;
+
     /**
      * Constructs a SelectionBinder that synchronizes mesh selections between the underlying
      * HumanBodyMeshes model and UI controls.
@@ -37,10 +42,19 @@ public class SelectionBinder {
      * @param humanBodyMeshes the HumanBodyMeshes providing mesh mappings and selection model
      */
     public SelectionBinder(HumanBodyMeshes humanBodyMeshes) {
-        fileIdToMeshMap = humanBodyMeshes.getFileIdToMeshMap();
+        this.humanBodyMeshes = humanBodyMeshes;
         meshSelectionModel = humanBodyMeshes.getSelectionModel();
     }
 
+    /**
+     * Sets the index used to look up the concept nodes of a mesh. Has to be called before any control is bound.
+     *
+     * @param meshConceptIndex the index covering the trees of all TreeViews that will be bound
+     */
+    public void setMeshConceptIndex(MeshConceptIndex meshConceptIndex) {
+        this.meshConceptIndex = meshConceptIndex;
+    }
+
     /**
      * Binds a TreeView to the mesh selection model for bidirectional synchronization.
      * TreeItem selections update the mesh selection model, and mesh selection changes update the TreeView.
@@ -48,9 +62,8 @@ public class SelectionBinder {
      * @param treeView the TreeView displaying AnatomyNode items to bind.
      */
     public void bindTreeView(TreeView<ConceptNode> treeView) {
-        TreeViewBinding binding = new TreeViewBinding(treeView);
+        TreeViewBinding binding = new TreeViewBinding(treeView, meshConceptIndex);
         treeViewBindings.put(treeView, binding);
-        mapConceptNamesIntoMeshUserData(treeView);
 
         MultipleSelectionModel<TreeItem<ConceptNode>> multipleSelectionModel = treeView.getSelectionModel();
 
@@ -67,156 +80,97 @@ public class SelectionBinder {
                 if (change.wasRemoved()) {
                     for (TreeItem<ConceptNode> item : change.getRemoved()) {
                         binding.selectionTracker.remove(item);
-                        ArrayList<String> fileIDs = item.getValue().getFileIDs();
+                        binding.ghostSelections.remove(item);
 
                         // collect the meshes that should be removed
-                        if (fileIDs != null) {
-                            for (String fileID : fileIDs) {
-                                meshesToDeselect.add(fileIdToMeshMap.get(fileID));
-                            }
-                        }
+                        meshesToDeselect.addAll(
+                                humanBodyMeshes.getMeshesOfFileIndices(item.getValue().getFileIndices()));
                     }
                 }
                 // Add mesh selections when tree nodes are selected
                 if (change.wasAdded()) {
                     for (TreeItem<ConceptNode> item : change.getAddedSubList()) {
-                        ArrayList<String> fileIDs = item.getValue().getFileIDs();
                         //DEBUG
                         //System.out.println("processing:" + item.getValue().getName());
-                        //System.out.println("fileIDs:" + fileIDs);
 
                         // same here: only leaves count as legitimate selection
-                        if (fileIDs != null && item.getValue().isLeaf()) {
+                        if (item.getValue().isLeaf()) {
                             binding.selectionTracker.add(item);
-                            //System.out.println("fileID not null");
-                            for (String fileID : fileIDs) {
-                                //System.out.println("try to add:" + fileID);
-                                meshesToSelect.add(fileIdToMeshMap.get(fileID));
-                            }
+                            meshesToSelect.addAll(
+                                    humanBodyMeshes.getMeshesOfFileIndices(item.getValue().getFileIndices()));
+                        } else {
+                            // cleared with the next change coming from the SourceOfTruth
+                            binding.ghostSelections.add(item);
                         }
                     }
                 }
             }
 
 
-            // apply batch de-/selections
-            meshSelectionModel.deselectAll(meshesToDeselect);
-            meshSelectionModel.selectAll(meshesToSelect);
+            // apply batch de-/selections as one change of the mesh selection
+            meshSelectionModel.batch(() -> {
+                meshSelectionModel.deselectAll(meshesToDeselect);
+                meshSelectionModel.selectAll(meshesToSelect);
+            });
 
             binding.isSyncing = false;
 
         });
 
-        // get changes from the SourceOfTruth
+        // get changes from the SourceOfTruth, only the items of the changed meshes are touched
         meshSelectionModel.addListener(change -> {
             if (binding.isSyncing) return;
             binding.isSyncing = true;
 
+            List<TreeItem<ConceptNode>> itemsToClear = new ArrayList<>();
+            List<TreeItem<ConceptNode>> itemsToSelect = new ArrayList<>();
             while (change.next()) {
-                if (change.wasAdded()) {
-                    for (MeshView addedMesh : change.getAddedSubList()) {
-                        selectNodeInTree(binding, addedMesh.getId());
-                    }
-                }
                 if (change.wasRemoved()) {
                     for (MeshView removedMesh : change.getRemoved()) {
-                        deselectNodeInTree(binding, removedMesh.getId());
+                        collectItemsToClear(binding, HumanBodyMeshes.indexOf(removedMesh), itemsToClear);
+                    }
+                }
+                if (change.wasAdded()) {
+                    for (MeshView addedMesh : change.getAddedSubList()) {
+                        collectItemsToSelect(binding, HumanBodyMeshes.indexOf(addedMesh), itemsToSelect);
                     }
                 }
             }
 
-            cleanupTreeView(binding);
+            binding.applyDelta(itemsToClear, itemsToSelect);
 
             binding.isSyncing = false;
         });
     }
 
     /**
-     * Selects the TreeItem(s) in the bound TreeView that correspond to the provided file ID.
-     * It uses the TreeViewBinding to perform the UI selection and update the internal selection tracker.
+     * Collects the TreeItem(s) in the bound TreeView that correspond to the provided file ID index and get selected.
+     * Meshes are only represented DIRECTLY by leaves, so only their items are collected (and created if necessary).
      *
-     * @param binding the TreeViewBinding containing the target TreeView and selection tracker
-     * @param fileID the file ID associated with the TreeItem(s) to select
+     * @param binding the TreeViewBinding containing the target TreeView
+     * @param fileIndex the file ID index associated with the TreeItem(s) to select
+     * @param items receives the items
      */
-    private void selectNodeInTree(TreeViewBinding binding, String fileID) {
-        TreeView<ConceptNode> treeView = binding.treeView;
-
-        Set<TreeItem<ConceptNode>> itemsToSelect = treeViewBindings.get(treeView).fileIdToTreeItem.get(fileID);
-        TreeItem<ConceptNode> lastLeaf = null;
-        if (itemsToSelect != null) {
-            for (TreeItem<ConceptNode> item : itemsToSelect) {
-                // meshes are only represented DIRECTLY by leaves -> so only they get selected
-                if (item.getValue().isLeaf()) {
-                    binding.selectInBoundTree(item);
-                    lastLeaf = item;
-                }
-            }
-        }
-
-        // scroll to the last selected item
-        if (lastLeaf != null) {
-            treeView.scrollTo(treeView.getRow(lastLeaf));
+    private void collectItemsToSelect(TreeViewBinding binding, int fileIndex, List<TreeItem<ConceptNode>> items) {
+        for (int leaf : meshConceptIndex.leavesOf(binding.tree, fileIndex)) {
+            TreeItem<ConceptNode> item = binding.itemOf(leaf);
+            if (item != null) items.add(item);
         }
     }
 
     /**
-     * Deselects the TreeItem(s) in the bound TreeView that correspond to the provided file ID.
-     * It uses the TreeViewBinding to clear the UI selection and update the internal selection tracker.
+     * Collects the existing TreeItem(s) in the bound TreeView that correspond to the provided file ID index and
+     * get deselected. Items that were never created can not be selected.
      *
-     * @param binding the TreeViewBinding containing the target TreeView and selection tracker
-     * @param fileID the file ID associated with the TreeItem(s) to deselect
+     * @param binding the TreeViewBinding containing the target TreeView
+     * @param fileIndex the file ID index associated with the TreeItem(s) to deselect
+     * @param items receives the items
      */
-    private void deselectNodeInTree(TreeViewBinding binding, String fileID) {
-        TreeView<ConceptNode> treeView = binding.treeView;
-        TreeItem<ConceptNode> root = treeView.getRoot();
-        if (root == null) return;
-
-        Set<TreeItem<ConceptNode>> itemsToDeSelect = treeViewBindings.get(treeView).fileIdToTreeItem.get(fileID);
-        if (itemsToDeSelect != null) {
-            for (TreeItem<ConceptNode> item : itemsToDeSelect) {
-                binding.clearInBoundTree(item);
-            }
-        }
-    }
-
-    /**
-     * Synchronizes the TreeView selection with the canonical selection tracker.
-     * Removes any 'ghost' selections (items selected in UI but not in tracker)
-     * and re-applies any missing selections (items in tracker but not currently selected).
-     *
-     * @param binding the TreeViewBinding containing the target TreeView and selection tracker
-     */
-    private void cleanupTreeView(TreeViewBinding binding) {
-        TreeView<ConceptNode> treeView = binding.treeView;
-
-
-        Set<TreeItem<ConceptNode>> trueSelection = binding.selectionTracker;
-        Set<TreeItem<ConceptNode>> selectedItems = new HashSet<>(treeView.getSelectionModel().getSelectedItems());
-
-        Set<TreeItem<ConceptNode>> ghostSelection = new HashSet<>(selectedItems);
-        ghostSelection.removeAll(trueSelection);
-
-        Set<TreeItem<ConceptNode>> missingSelections = new HashSet<>(trueSelection);
-        missingSelections.removeAll(selectedItems);
-
-        // DEBUG
-        // System.out.println("Binding Tracker: " + trueSelection);
-        // System.out.println("Selected Items: " + selectedItems);
-        // System.out.println("Ghost Selection: " + ghostSelection);
-        // System.out.println("Missing Selection: " + missingSelections);
-
-        // clearing selections that shouldn't have happened!
-        for (TreeItem<ConceptNode> item : ghostSelection) {
-            binding.clearInBoundTree(item);
-        }
-
-        // ensure that previous selection stays selected:
-        // keeping track of previous selection and adding them back in resolved issue #35
-        // it happened that the previous selection was dismissed (which seemed to happen when the tree was fully collapsed
-        for (TreeItem<ConceptNode> item : missingSelections) {
-            if (item.getValue().isLeaf()) {
-                binding.selectInBoundTree(item);
-            }
+    private void collectItemsToClear(TreeViewBinding binding, int fileIndex, List<TreeItem<ConceptNode>> items) {
+        if (binding.treeView.getRoot() == null) return;
+        for (int node : meshConceptIndex.nodesOf(binding.tree, fileIndex)) {
+            TreeItem<ConceptNode> item = binding.existingItemOf(node);
+            if (item != null) items.add(item);
         }
     }
 
@@ -224,52 +178,33 @@ public class SelectionBinder {
      * Binds a ListView of anatomy names to the mesh selection model.
      * Selected mesh names are shown in the list; list interactions are disabled.
      *
-     * @param selectionList the ListView<String> to display selected anatomy names
+     * @param selectionList the ListView to display selected anatomy names
+     * @param colorPicker provides the selection color shown next to a name
      */
-    public void bindListView(ListView<Label> selectionList, ColorPicker colorPicker) {
+    public void bindListView(ListView<SelectedPartsModel.Part> selectionList, ColorPicker colorPicker) {
         if (selectionList == null) return;
 
-        // Update ListView items when mesh selection model changes
+        SelectedPartsModel selectedParts = new SelectedPartsModel();
+        selectionList.setItems(selectedParts.getParts());
+        selectionList.setCellFactory(SelectedPartsModel::createCell);
+
+        // Update ListView items when mesh selection model changes, all names of one change in one update
         meshSelectionModel.addListener(change -> {
+            List<String> removedNames = new ArrayList<>();
+            List<String> addedNames = new ArrayList<>();
             while (change.next()) {
+                if (change.wasRemoved()) {
+                    for (MeshView removedMesh : change.getRemoved()) {
+                        removedNames.addAll(meshConceptIndex.leafNamesOf(HumanBodyMeshes.indexOf(removedMesh)));
+                    }
+                }
                 if (change.wasAdded()) {
                     for (MeshView addedMesh : change.getAddedSubList()) {
-                        //DEBUG
-                        //System.out.println("added:" + addedMesh.getId());
-                        @SuppressWarnings("unchecked")
-                        HashSet<String> names = (HashSet<String>) addedMesh.getUserData();
-                        for (String name : names) {
-                            boolean alreadyExists = selectionList.getItems().stream()
-                                    .anyMatch(label -> label.getText().equals(name));
-
-                            Label label = new Label(name);
-
-                            Circle colorCircle = new Circle(5);
-                            colorCircle.setFill(colorPicker.getValue());
-                            label.setGraphic(colorCircle);
-                            label.setGraphicTextGap(8);
-
-                            if (!alreadyExists) {
-                                selectionList.getItems().addFirst(label);
-
-                            } else { // if it already exists, update its color to the new selected color
-                                selectionList.getItems().removeIf(existingLabel -> existingLabel.getText().equals(name));
-                                selectionList.getItems().add(label);
-                            }
-                        }
-                    }
-                } else if (change.wasRemoved()) {
-                    for (MeshView removedMesh : change.getRemoved()) {
-                        //DEBUG
-                        //System.out.println("removed:" + removedMesh.getId());
-                        @SuppressWarnings("unchecked")
-                        HashSet<String> names = (HashSet<String>) removedMesh.getUserData();
-                        for (String name : names) {
-                            selectionList.getItems().removeIf(label -> label.getText().equals(name));
-                        }
+                        addedNames.addAll(meshConceptIndex.leafNamesOf(HumanBodyMeshes.indexOf(addedMesh)));
                     }
                 }
             }
+            selectedParts.update(removedNames, addedNames, colorPicker.getValue());
         });
 
         // Disable interaction
@@ -285,21 +220,14 @@ public class SelectionBinder {
 
         binding.clearSelection();
 
+        // Select and track the tree items with one selection change
+        binding.selectAllInBoundTree(itemsToSelect);
+
         // Collect meshes to select
         List<MeshView> meshesToSelect = new ArrayList<>();
         for (TreeItem<ConceptNode> item : itemsToSelect) {
-            // Select each tree item and track it
-            binding.selectInBoundTree(item);
             // Gather associated meshes
-            List<String> fileIDs = item.getValue().getFileIDs();
-            if (fileIDs != null) {
-                for (String fileID : fileIDs) {
-                    MeshView mesh = fileIdToMeshMap.get(fileID);
-                    if (mesh != null) {
-                        meshesToSelect.add(mesh);
-                    }
-                }
-            }
+            meshesToSelect.addAll(humanBodyMeshes.getMeshesOfFileIndices(item.getValue().getFileIndices()));
         }
 
         meshSelectionModel.selectAll(meshesToSelect);
@@ -308,32 +236,67 @@ public class SelectionBinder {
     }
 
     /**
-     * Selects all anatomy nodes and corresponding meshes under a given tree item.
+     * Runs an operation that changes the TreeView selection only temporarily (e.g. detaching its root)
+     * without propagating these changes to the mesh selection model.
+     * The operation has to restore the selection itself.
+     *
+     * @param treeView the TreeView the operation works on
+     * @param operation the operation to run
+     */
+    public void runWithoutSync(TreeView<ConceptNode> treeView, Runnable operation) {
+        TreeViewBinding binding = treeViewBindings.get(treeView);
+        // not bound yet (meshes still loading), nothing to keep in sync
+        if (binding == null) {
+            operation.run();
+            return;
+        }
+
+        boolean wasSyncing = binding.isSyncing;
+        binding.isSyncing = true;
+        try {
+            operation.run();
+        } finally {
+            binding.isSyncing = wasSyncing;
+        }
+    }
+
+    /**
+     * Selects all anatomy nodes and corresponding meshes under the given tree items.
      * Updates both TreeView selection and mesh selection model in batch.
+     * Items below another given item are covered by its subtree and skipped, which the pre-order intervals of the
+     * {@link TreeIndex} tell without walking up the tree.
      *
-     * @param item the TreeItem subtree root to select
-     * @param treeView the TreeView containing the item
+     * @param items the TreeItem subtree roots to select
+     * @param treeView the TreeView containing the items
      */
-    public void selectAllBelow(TreeItem<ConceptNode> item, TreeView<ConceptNode> treeView) {
-        if (item == null) return;
+    public void selectAllBelow(List<TreeItem<ConceptNode>> items, TreeView<ConceptNode> treeView) {
+        // in pre-order every item comes after the items it is below
+        List<TreeItem<ConceptNode>> roots = new ArrayList<>(items);
+        roots.removeIf(Objects::isNull);
+        if (roots.isEmpty()) return;
 
         TreeViewBinding binding = treeViewBindings.get(treeView);
+        TreeIndex treeIndex = TreeIndex.of(treeView.getRoot().getValue());
+        roots.sort(Comparator.comparingInt(item -> treeIndex.indexOf(item.getValue())));
 
         // Temporarily disable sync to perform batch selection
         binding.isSyncing = true;
 
-        ArrayList<MeshView> meshesToSelect = new ArrayList<>();
         binding.clearSelection();
 
-        // Traverse subtree to collect and select nodes and meshes
-        TreeUtils.preOrderTreeViewTraversal(item, node -> {
-            binding.selectInBoundTree(node);
-            for (String fileID : node.getValue().getFileIDs()) {
-                meshesToSelect.add(fileIdToMeshMap.get(fileID));
-            }
-        });
-
-        cleanupTreeView(binding);
+        // Traverse the subtrees to select the nodes (creating their TreeItems), their meshes are precomputed
+        List<TreeItem<ConceptNode>> subtreeItems = new ArrayList<>();
+        CompactBitSet.Builder meshIndices = new CompactBitSet.Builder();
+        int lastRoot = -1;
+        for (TreeItem<ConceptNode> item : roots) {
+            int index = treeIndex.indexOf(item.getValue());
+            if (lastRoot >= 0 && treeIndex.isAncestor(lastRoot, index)) continue;
+            lastRoot = index;
+            TreeUtils.preOrderTreeViewTraversal(item, subtreeItems::add);
+            meshIndices.addAll(treeIndex.subtreeMeshes(index));
+        }
+        binding.selectAllInBoundTree(subtreeItems);
+        ArrayList<MeshView> meshesToSelect = humanBodyMeshes.getMeshesOf(meshIndices.build());
 
         // using Batch selection to fire only ONE event for the listeners -> Crucial for correct TreeView SelectionModel
         // selection above (receiving items from the source of truth)
@@ -342,100 +305,127 @@ public class SelectionBinder {
     }
 
     /**
-     * Maps concept node names into the userData of their associated MeshView objects.
-     *
-     * This method traverses all leaf nodes in the provided TreeView. For each leaf node,
-     * it retrieves the associated file IDs from the ConceptNode, then uses these IDs to
-     * look up corresponding MeshView objects. If a MeshView already contains a HashSet of
-     * concept names in its userData, the current ConceptNode's name is added to that set.
-     *
-     * I consider only leaves since I interprete Meshes as leaf concepts even though
-     * internal Nodes may be associated with it.
-     * But since I also only select Meshes if a leaf is selected in TreeView it is unnecessary
-     * to list the internal names also.
-     *
-     * This allows the MeshView to store references to all anatomical concept names it represents.
-     *
-     * @param treeRoot the TreeView containing ConceptNode items whose names will be mapped
-     *                 into the userData of their corresponding MeshView instances
-     */
-    private void mapConceptNamesIntoMeshUserData(TreeView<ConceptNode> treeRoot) {
-        TreeUtils.preOrderTreeViewTraversal(treeRoot.getRoot(), node -> {
-            if (node.isLeaf()) {
-                ConceptNode conceptNode = node.getValue();
-                for (String fileID : conceptNode.getFileIDs()) {
-                    MeshView mesh = fileIdToMeshMap.get(fileID);
-                    if (mesh.getUserData() instanceof HashSet<?> userData) {
-                        @SuppressWarnings("unchecked") // not ideal, but since we won't reuse the userData it suffices
-                        HashSet<String> conceptNames = (HashSet<String>) userData;
-                        conceptNames.add(conceptNode.getName());
-                    }
-                }
-            }
-        });
-    }
-
-    /**
-     * Internal helper that maps file IDs to TreeItems for a specific TreeView.
+     * Internal helper that resolves the concept nodes of the MeshConceptIndex to TreeItems of a specific TreeView.
+     * TreeItems are only created for the nodes that get selected, see {@link ConceptTreeItem}.
      * Facilitates selection synchronization between mesh model and tree UI.
+     * <p>
+     * Changes are applied as deltas: only the items of the changed meshes, items the user selected although they do
+     * not stand for a mesh (ghost selections) and tracked items that were not shown yet (missing selections) are
+     * looked at, so the cost of a sync grows with the change and not with the size of the selection.
+     * </p>
      */
     private static class TreeViewBinding {
         private final TreeView<ConceptNode> treeView;
         private final ObservableSet<TreeItem<ConceptNode>> selectionTracker = FXCollections.observableSet(new HashSet<>());
-        // map fileID to TreeItem -> Set of Nodes is used because one FileID can be associated with multiple Items
-        private final Map<String, Set<TreeItem<ConceptNode>>> fileIdToTreeItem = new HashMap<>();
+        // selected in the TreeView but not tracked, e.g. internal items picked by the user
+        private final Set<TreeItem<ConceptNode>> ghostSelections = new HashSet<>();
+        // tracked but not selected, as they were hidden by the filter when they got selected
+        private final Set<TreeItem<ConceptNode>> missingSelections = new HashSet<>();
+        // position of the bound tree in the MeshConceptIndex
+        private final int tree;
         private boolean isSyncing = false;
 
         /**
-         * Constructs a TreeViewBinding for the given TreeView and maps its TreeItems by file ID.
+         * Constructs a TreeViewBinding for the given TreeView.
          *
-         * @param treeView the TreeView to bind and map.
+         * @param treeView the TreeView to bind.
+         * @param meshConceptIndex the index covering the tree of the TreeView
          */
-        TreeViewBinding(TreeView<ConceptNode> treeView) {
+        TreeViewBinding(TreeView<ConceptNode> treeView, MeshConceptIndex meshConceptIndex) {
             this.treeView = treeView;
-            mapTree(treeView.getRoot());
+            this.tree = meshConceptIndex.treeOf(treeView.getRoot().getValue());
+            if (tree < 0) throw new IllegalArgumentException("Tree of " + treeView.getId() + " is not indexed");
+        }
+
+        /**
+         * Returns the TreeItem of a node, creating the items on the path from the root if necessary.
+         *
+         * @param node the pre-order number of a concept node of the bound tree
+         * @return the TreeItem displaying the node
+         */
+        private TreeItem<ConceptNode> itemOf(int node) {
+            return ConceptTreeItem.materialize(treeView.getRoot(), node);
         }
 
         /**
-         * Recursively maps all TreeItems in the given TreeItem hierarchy by their associated file IDs.
+         * @param node the pre-order number of a concept node of the bound tree
+         * @return the TreeItem displaying the node, null if it was not created yet
+         */
+        private TreeItem<ConceptNode> existingItemOf(int node) {
+            return ConceptTreeItem.existingItem(treeView.getRoot(), node);
+        }
+
+        /**
+         * Applies one change of the mesh selection: clears the given items and the ghost selections, selects the
+         * given items and retries the missing selections, and scrolls to the last newly selected item once.
          *
-         * @param current the current TreeItem being mapped.
+         * @param itemsToClear the items of the deselected meshes
+         * @param itemsToSelect the leaf items of the selected meshes
          */
-        private void mapTree(TreeItem<ConceptNode> current) {
-            if (current == null) return;
-
-            List<String> fileIDs = current.getValue().getFileIDs();
-            if (fileIDs != null) {
-                for (String fileID : fileIDs) {
-                    Set<TreeItem<ConceptNode>> set = fileIdToTreeItem
-                        .computeIfAbsent(fileID, k -> new HashSet<>());
-                    set.add(current);
+        private void applyDelta(List<TreeItem<ConceptNode>> itemsToClear, List<TreeItem<ConceptNode>> itemsToSelect) {
+            // clearing selections that shouldn't have happened!
+            itemsToClear.addAll(ghostSelections);
+            ghostSelections.clear();
+            clearAllInBoundTree(itemsToClear);
+
+            // ensure that previous selection stays selected:
+            // keeping track of previous selection and adding them back in resolved issue #35
+            // it happened that the previous selection was dismissed (which seemed to happen when the tree was fully collapsed
+            int newlySelected = itemsToSelect.size();
+            itemsToSelect.addAll(missingSelections);
+            missingSelections.clear();
+            int[] rows = selectAllInBoundTree(itemsToSelect);
+
+            // scroll to the last selected item
+            for (int i = newlySelected - 1; i >= 0; i--) {
+                if (rows[i] >= 0) {
+                    treeView.scrollTo(rows[i]);
+                    break;
                 }
             }
-            for (TreeItem<ConceptNode> child : current.getChildren()) {
-                mapTree(child);
-            }
         }
 
         /**
-         * Selects the given TreeItem in the bound TreeView and adds it to the selection tracker.
+         * Selects the given TreeItems in the bound TreeView with one selection change and adds them to the
+         * selection tracker. Collapsed ancestors of the items are expanded in one batch first, so selecting reveals
+         * the items as selecting a single item does. Items that are still not shown (hidden by the filter) are
+         * tracked as missing selections.
          *
-         * @param item the TreeItem to select in the TreeView
+         * @param items the TreeItems to select in the TreeView
+         * @return the rows of the items, -1 for items that are not shown
          */
-        private void selectInBoundTree(TreeItem<ConceptNode> item) {
-            treeView.getSelectionModel().select(item);
-            selectionTracker.add(item);
+        private int[] selectAllInBoundTree(List<TreeItem<ConceptNode>> items) {
+            if (items.isEmpty()) return new int[0];
+            TreeUtils.revealInBatch(treeView, items);
+            int[] rows = TreeUtils.rowsOf(treeView, items);
+            int[] shownRows = new int[rows.length];
+            int shownCount = 0;
+            for (int i = 0; i < rows.length; i++) {
+                TreeItem<ConceptNode> item = items.get(i);
+                selectionTracker.add(item);
+                if (rows[i] >= 0) shownRows[shownCount++] = rows[i];
+                else if (item.getValue().isLeaf()) missingSelections.add(item);
+            }
+            if (shownCount > 0) {
+                treeView.getSelectionModel().selectIndices(shownRows[0], Arrays.copyOfRange(shownRows, 1, shownCount));
+            }
+            return rows;
         }
 
         /**
-         * Clears the selection of the given TreeItem in the bound TreeView and removes it from the selection tracker.
+         * Clears the selection of the given TreeItems in the bound TreeView and removes them from the selection
+         * tracker.
          *
-         * @param item the TreeItem to deselect in the TreeView
+         * @param items the TreeItems to deselect in the TreeView
          */
-        private void clearInBoundTree(TreeItem<ConceptNode> item) {
-            int index = treeView.getRow(item);
-            treeView.getSelectionModel().clearSelection(index);
-            selectionTracker.remove(item);
+        private void clearAllInBoundTree(List<TreeItem<ConceptNode>> items) {
+            MultipleSelectionModel<TreeItem<ConceptNode>> selectionModel = treeView.getSelectionModel();
+            int[] rows = TreeUtils.rowsOf(treeView, items);
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] >= 0 && selectionModel.isSelected(rows[i])) selectionModel.clearSelection(rows[i]);
+                selectionTracker.remove(items.get(i));
+                missingSelections.remove(items.get(i));
+            }
         }
 
         /**
@@ -444,6 +434,8 @@ public class SelectionBinder {
         private void clearSelection() {
             treeView.getSelectionModel().clearSelection();
             selectionTracker.clear();
+            ghostSelections.clear();
+            missingSelections.clear();
         }
     }
 }
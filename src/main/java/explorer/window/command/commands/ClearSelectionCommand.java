@@ -75,9 +75,9 @@ public class ClearSelectionCommand implements Command {
      */
     @Override
     public void undo() {
-        for (MeshView mesh : previousMeshSelection) {
-            humanBodyMeshes.getSelectionModel().select(mesh);
-        }
+        // the TreeView selections are not batched: the changes they cause must reach the meshes while the
+        // TreeViews are syncing, otherwise restored internal items are cleared again
+        humanBodyMeshes.getSelectionModel().selectAll(previousMeshSelection);
 
         for (TreeItem<ConceptNode> item : previousIsASelection) {
             treeViewIsA.getSelectionModel().select(item);
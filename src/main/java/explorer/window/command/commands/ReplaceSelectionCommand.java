@@ -0,0 +1,63 @@
+package explorer.window.command.commands;
+
+import explorer.selection.MeshSelectionManager;
+import explorer.window.command.Command;
+import javafx.scene.shape.MeshView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Command to replace the current mesh selection with a given set of meshes, e.g. the result of a query.
+ * Provides undo functionality to restore the previous mesh selection.
+ */
+public class ReplaceSelectionCommand implements Command {
+
+    private final MeshSelectionManager model;
+    private final List<MeshView> meshesToSelect;
+    private final List<MeshView> previousSelection;
+
+    /**
+     * Constructs a ReplaceSelectionCommand that captures the current mesh selection.
+     *
+     * @param model the MeshSelectionManager handling selection logic
+     * @param meshesToSelect the meshes that make up the new selection
+     */
+    public ReplaceSelectionCommand(MeshSelectionManager model, List<MeshView> meshesToSelect) {
+        this.model = model;
+        this.meshesToSelect = new ArrayList<>(meshesToSelect);
+        this.previousSelection = new ArrayList<>(model.getListOfCurrentlySelectedItems());
+    }
+
+    /**
+     * @return the name of the command
+     */
+    @Override
+    public String name() {
+        return "Replace Selection";
+    }
+
+    /**
+     * Executes the command by selecting exactly the given meshes, with a single change event.
+     */
+    @Override
+    public void execute() {
+        select(meshesToSelect);
+    }
+
+    /**
+     * Undoes the command by restoring the previously selected meshes, with a single change event.
+     */
+    @Override
+    public void undo() {
+        select(previousSelection);
+    }
+
+    private void select(List<MeshView> meshes) {
+        model.batch(() -> {
+            model.clearSelection();
+            model.selectAll(meshes);
+        });
+    }
+}
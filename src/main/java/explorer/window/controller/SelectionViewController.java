@@ -1,6 +1,7 @@
 package explorer.window.controller;
 
 import explorer.model.treetools.ConceptNode;
+import explorer.selection.SelectedPartsModel;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
@@ -42,6 +43,9 @@ public class SelectionViewController {
     @FXML
     private MenuItem expandMenuItem;
 
+    @FXML
+    private MenuItem expandLevelsMenuItem;
+
     @FXML
     private MenuItem conceptInfroamtionMenuItem;
 
@@ -64,7 +68,7 @@ public class SelectionViewController {
     private ToggleButton selectionListToggle;
 
     @FXML
-    private ListView<Label> selectionListView;
+    private ListView<SelectedPartsModel.Part> selectionListView;
 
     @FXML
     private TextField textFieldSearchBar;
@@ -93,6 +97,15 @@ public class SelectionViewController {
     @FXML
     private ToggleButton regexToggleButton;
 
+    @FXML
+    private ToggleButton fuzzyToggleButton;
+
+    @FXML
+    private ToggleButton filterToggleButton;
+
+    @FXML
+    private ToggleButton queryToggleButton;
+
     @FXML
     private Button aiButton;
 
@@ -140,6 +153,10 @@ public class SelectionViewController {
         return expandMenuItem;
     }
 
+    public MenuItem getExpandLevelsMenuItem() {
+        return expandLevelsMenuItem;
+    }
+
     public MenuItem getConceptInfroamtionMenuItem() {
         return conceptInfroamtionMenuItem;
     }
@@ -168,7 +185,7 @@ public class SelectionViewController {
         return selectionListToggle;
     }
 
-    public ListView<Label> getSelectionListView() {
+    public ListView<SelectedPartsModel.Part> getSelectionListView() {
         return selectionListView;
     }
 
@@ -208,6 +225,18 @@ public class SelectionViewController {
         return regexToggleButton;
     }
 
+    public ToggleButton getFuzzyToggleButton() {
+        return fuzzyToggleButton;
+    }
+
+    public ToggleButton getFilterToggleButton() {
+        return filterToggleButton;
+    }
+
+    public ToggleButton getQueryToggleButton() {
+        return queryToggleButton;
+    }
+
     public Button getAiButton() {
         return aiButton;
     }
@@ -3,7 +3,8 @@ package explorer.window.presenter;
 import explorer.model.Cladogram;
 import explorer.model.treetools.ConceptNode;
 import explorer.model.KryoUtils;
-import explorer.model.treetools.TreeUtils;
+import explorer.model.treetools.TreeIndex;
+import explorer.model.treetools.TreeStatistics;
 import explorer.window.controller.ConceptInfoDialogController;
 import explorer.window.vistools.DrawCladogram;
 import javafx.collections.FXCollections;
@@ -33,6 +34,7 @@ public class ConceptInfoDialogPresenter {
 
     private final ConceptInfoDialogController controller;
     private final TreeView<ConceptNode> treeView;
+    private final TreeIndex treeIndex;
     private final List<String> depthRange = new ArrayList<>();
 
 
@@ -49,6 +51,8 @@ public class ConceptInfoDialogPresenter {
 
         this.controller = controller;
         this.treeView = treeView;
+        // built once per tree on the first dialog, afterward all statistics are plain lookups
+        this.treeIndex = TreeIndex.of(treeView.getRoot().getValue());
 
         // get the selectedItem
         TreeItem<ConceptNode> selectedItem = selectedItems.getFirst();
@@ -65,8 +69,9 @@ public class ConceptInfoDialogPresenter {
         int maxDepth = Integer.MIN_VALUE;
         int minDepth = Integer.MAX_VALUE;
         for (TreeItem<ConceptNode> item : selectedItems) {
-            int currentMin = TreeUtils.calculateDepthToRoot(item);
-            int currentMax = currentMin + TreeUtils.horizontalTreeDepth(item.getValue());
+            int index = treeIndex.indexOf(item.getValue());
+            int currentMin = treeIndex.depth(index);
+            int currentMax = currentMin + treeIndex.height(index);
 
             if (currentMin < minDepth) {
                 minDepth = currentMin;
@@ -132,30 +137,32 @@ public class ConceptInfoDialogPresenter {
      */
     private void redrawCharacteristicsTab(TreeItem<ConceptNode> selectedItem) {
         ConceptNode selectedConcept = selectedItem.getValue();
+        int index = treeIndex.indexOf(selectedConcept);
 
         controller.getSelectedConceptLabel().setText(selectedConcept.getName());
-        TreeItem<ConceptNode> parent = selectedItem.getParent();
-        controller.getParentConceptLabel().setText(parent == null ? "No parent!" : parent.getValue().getName());
+        int parentIndex = treeIndex.parent(index);
+        ConceptNode parent = parentIndex < 0 ? null : treeIndex.node(parentIndex);
+        controller.getParentConceptLabel().setText(parent == null ? "No parent!" : parent.getName());
 
-        int depthFromRoot = TreeUtils.calculateDepthToRoot(selectedItem);
+        int depthFromRoot = treeIndex.depth(index);
         controller.getDepthFromRootLabel().setText(String.valueOf(depthFromRoot));
         controller.getNumberOfChildsLabel().setText(String.valueOf(selectedConcept.getChildren().size()));
         controller.getNumberOfSiblingsLabel().setText(String.valueOf(parent == null ? 0 : parent.getChildren().size() - 1));
-        controller.getNumberOfMeshesLabel().setText(String.valueOf(selectedConcept.getFileIDs().size()));
+        controller.getNumberOfMeshesLabel().setText(String.valueOf(treeIndex.subtreeMeshes(index).cardinality()));
 
-        int subTreeSize = TreeUtils.calculateTreeSize(selectedItem);
+        int subTreeSize = treeIndex.subtreeSize(index);
         controller.getSubtreeSizeLabel().setText(String.valueOf(subTreeSize));
-        controller.getSubtreeHeightLabel().setText(String.valueOf(TreeUtils.horizontalTreeDepth(selectedConcept)));
-        int leavesInSubtree = TreeUtils.numberOfLeaves(selectedConcept);
+        controller.getSubtreeHeightLabel().setText(String.valueOf(treeIndex.height(index)));
+        int leavesInSubtree = treeIndex.leafCount(index);
         controller.getNumberLeavesLabel().setText(String.valueOf(leavesInSubtree));
-        int totalLeaves = TreeUtils.numberOfLeaves(treeView.getRoot().getValue());
+        int totalLeaves = treeIndex.leafCount(0);
         double percentage = ((double) leavesInSubtree / totalLeaves) * 100;
         controller.getLeavesBelowLabel().setText(String.format(percentage == 100 ? "%.0f %%" : "%.2f %%", percentage));
 
 
         // setup of subtree coverage pieChart:
         drawCoveragePie(subTreeSize);
-        drawNodePerDepthPlot(selectedItem, depthFromRoot);
+        drawNodePerDepthPlot(index, depthFromRoot);
 
     }
 
@@ -166,7 +173,7 @@ public class ConceptInfoDialogPresenter {
      * @param subTreeSize the size of the currently selected subtree
      */
     private void drawCoveragePie(int subTreeSize) {
-        int totalTreeSize = TreeUtils.calculateTreeSize(treeView.getRoot());
+        int totalTreeSize = treeIndex.size();
         PieChart coveragePie = controller.getSubtreeCoveragePieChart();
         ObservableList<PieChart.Data> pieData = coveragePie.getData();
 
@@ -195,13 +202,13 @@ public class ConceptInfoDialogPresenter {
      * Draws or updates the bar chart showing the number of nodes per depth in the subtree.
      * Maintains smooth animation by updating only necessary bars and removing deprecated ones.
      *
-     * @param selectedItem the TreeItem for which to visualize the depth distribution
+     * @param index the pre-order number of the node for which to visualize the depth distribution
      * @param depthFromRoot the depth of the selected node from the tree root
      */
-    private void drawNodePerDepthPlot(TreeItem<ConceptNode> selectedItem, int depthFromRoot) {
+    private void drawNodePerDepthPlot(int index, int depthFromRoot) {
         // setup nodes per depth graph:
-        // Key: depth, value: number of nodes
-        Map<Integer, Integer> nodesPerDepth = TreeUtils.countNodesPerDepth(selectedItem);
+        // index: depth relative to the selected node, value: number of nodes
+        int[] nodesPerDepth = treeIndex.nodesPerDepth(index);
         BarChart<String, Number> nodePerDepthChart = controller.getConceptsPerDepthBarChart();
         ObservableList<XYChart.Series<String, Number>> existingSeries = nodePerDepthChart.getData();
 
@@ -211,7 +218,7 @@ public class ConceptInfoDialogPresenter {
             series = new XYChart.Series<>();
             for (String depthLabel : depthRange) {
                 int originalDepth = Integer.parseInt(depthLabel) - depthFromRoot;
-                int count = nodesPerDepth.getOrDefault(originalDepth, 0);
+                int count = originalDepth >= 0 && originalDepth < nodesPerDepth.length ? nodesPerDepth[originalDepth] : 0;
                 series.getData().add(new XYChart.Data<>(depthLabel, count));
             }
             nodePerDepthChart.getData().add(series);
@@ -229,7 +236,7 @@ public class ConceptInfoDialogPresenter {
             // Update existing bars or add new ones if missing
             for (String depthLabel : depthRange) {
                 int originalDepth = Integer.parseInt(depthLabel) - depthFromRoot;
-                int count = nodesPerDepth.getOrDefault(originalDepth, 0);
+                int count = originalDepth >= 0 && originalDepth < nodesPerDepth.length ? nodesPerDepth[originalDepth] : 0;
 
                 if (dataMap.containsKey(depthLabel)) {
                     dataMap.get(depthLabel).setYValue(count);
@@ -263,7 +270,8 @@ public class ConceptInfoDialogPresenter {
             fullTreeData = KryoUtils.thawIntegerMapFromKryo("/serializedMaps/partOf_NodeDegrees.kryo");
         }
 
-        Map<Integer, Double> subTreeData = TreeUtils.computeNormalizedNodeDegreeDistribution(selectedItem);
+        TreeStatistics statistics = TreeStatistics.of(treeIndex, treeIndex.indexOf(selectedItem.getValue()));
+        Map<Integer, Double> subTreeData = statistics.normalizedDegreeDistribution();
 
         List<Integer> allDegrees = new ArrayList<>();
         // fullTree contains always all degrees. Subtree can only have a maxum thta is the same to the fullTree
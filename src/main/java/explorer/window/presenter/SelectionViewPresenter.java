@@ -1,25 +1,49 @@
 package explorer.window.presenter;
 
 import explorer.model.AiApiService;
+import explorer.apptools.AppLogger;
+import explorer.model.CompactBitSet;
+import explorer.model.ConceptQuery;
 import explorer.model.treetools.ConceptNode;
+import explorer.model.treetools.TreeIndex;
+import explorer.model.treetools.ConceptTreeItem;
+import explorer.model.treetools.FuzzyNameIndex;
+import explorer.model.treetools.NameIndex;
+import explorer.model.treetools.RegexSearch;
+import explorer.model.treetools.SearchCache;
+import explorer.model.treetools.SearchMode;
 import explorer.model.treetools.TreeUtils;
 import explorer.model.KryoUtils;
 import explorer.window.GuiRegistry;
+import explorer.window.command.commands.ReplaceSelectionCommand;
 import explorer.window.controller.SelectionViewController;
+import explorer.window.vistools.HumanBodyMeshes;
 import javafx.animation.FadeTransition;
 import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.control.TreeView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.shape.MeshView;
 import javafx.util.Duration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.regex.Matcher;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -30,6 +54,18 @@ import java.util.regex.PatternSyntaxException;
  */
 public class SelectionViewPresenter {
 
+    // number of levels shown by "Expand 3 Levels"
+    private static final int EXPAND_LEVELS = 3;
+
+    // pause in typing after which a search starts
+    private static final Duration SEARCH_DELAY = Duration.millis(150);
+
+    // time a regex search may take before it is aborted, e.g. for catastrophic backtracking
+    private static final long REGEX_TIME_LIMIT_NANOS = 2_000_000_000L;
+
+    // time a fuzzy search may take per keystroke, the matches found until then are shown
+    private static final long FUZZY_TIME_LIMIT_NANOS = 50_000_000L;
+
     private TreeView<ConceptNode> lastFocusedTreeView = null;
     private final GuiRegistry registry;
 
@@ -62,8 +98,8 @@ public class SelectionViewPresenter {
         TreeView<ConceptNode> treeViewPartOf = registry.getSelectionViewController().getTreeViewPartOf();
 
 
-        setupTreeView(treeViewIsA, "/serializedTrees/isA_tree.kryo");
-        setupTreeView(treeViewPartOf, "/serializedTrees/partOf_tree.kryo");
+        setupTreeView(treeViewIsA, "/serializedTrees/isA_tree.lazy");
+        setupTreeView(treeViewPartOf, "/serializedTrees/partOf_tree.lazy");
 
         // default is partOf tree
         lastFocusedTreeView = treeViewPartOf;
@@ -74,47 +110,34 @@ public class SelectionViewPresenter {
     }
 
     /**
-     * Initializes the provided TreeView with a tree structure loaded from a Kryo file.
-     * Also sets selection mode to multiple and updates focus to track the last focused TreeView.
+     * Initializes the provided TreeView with a tree structure loaded from a lazily loadable tree file.
+     * Only the root item is created, see {@link ConceptTreeItem}. Also sets selection mode to multiple and updates focus to track the last focused TreeView.
      *
      * @param treeView the TreeView to initialize
-     * @param kryoPath the path to the Kryo file containing the tree data
+     * @param treePath the resource path to the file containing the tree data
      */
-    private void setupTreeView(TreeView<ConceptNode> treeView, String kryoPath) {
-        ConceptNode root = KryoUtils.thawTreeFromKryo(kryoPath);
-        TreeItem<ConceptNode> rootItem = createTreeItemsRec(root);
-        treeView.setRoot(rootItem);
+    private void setupTreeView(TreeView<ConceptNode> treeView, String treePath) {
+        ConceptNode root = KryoUtils.thawLazyTree(treePath);
+        // child items are created when a branch is expanded or a search hit is shown
+        treeView.setRoot(new ConceptTreeItem(root));
         treeView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         treeView.focusedProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal) lastFocusedTreeView = treeView;
         });
     }
 
-    /**
-     * Recursively converts an AnatomyNode tree structure into TreeItems for display in a TreeView.
-     *
-     * @param treeRoot The root node of the AnatomyNode tree.
-     * @return The corresponding TreeItem for the provided AnatomyNode.
-     */
-    private static TreeItem<ConceptNode> createTreeItemsRec(ConceptNode treeRoot) {
-        TreeItem<ConceptNode> item = new TreeItem<>(treeRoot);
-        if (!treeRoot.getChildren().isEmpty()) {
-            for (ConceptNode child : treeRoot.getChildren()) {
-                item.getChildren().add(createTreeItemsRec(child));
-            }
-        }
-        return item;
-    }
-
     /**
      * Configures the select, expand, and collapse buttons for the selection view.
      */
     private void setupButtons() {
         controller.getButtonSelectAtTreeNode().setOnAction(e -> {
-            registry.getSelectionBinder().selectAllBelow(selectedItem(), lastFocusedTreeView);
+            // copied, as selecting below the items clears the selection first
+            registry.getSelectionBinder().selectAllBelow(
+                    new ArrayList<>(lastFocusedTreeView.getSelectionModel().getSelectedItems()), lastFocusedTreeView);
         });
 
         controller.getExpandMenuItem().setOnAction(e -> expandAtSelectedNode());
+        controller.getExpandLevelsMenuItem().setOnAction(e -> expandAtSelectedNode(EXPAND_LEVELS));
         controller.getCollapseMenuItem().setOnAction(e -> collapseAtSelectedNode());
         controller.getConceptInfroamtionMenuItem().setOnAction(
                 e -> registry.getMainViewPresenter().openConceptInformationDialog(registry));
@@ -131,6 +154,9 @@ public class SelectionViewPresenter {
         Button allButton = controller.getButtonFindAll();
         Label hitLabel = controller.getSearchHitLabel();
         ToggleButton useRegexToggle = controller.getRegexToggleButton();
+        ToggleButton fuzzyToggle = controller.getFuzzyToggleButton();
+        ToggleButton filterToggle = controller.getFilterToggleButton();
+        ToggleButton queryToggle = controller.getQueryToggleButton();
         Button aiButton = controller.getAiButton();
 
 
@@ -138,25 +164,55 @@ public class SelectionViewPresenter {
 
         // setup of the search bar
         searchBar.textProperty().addListener((observable, oldValue, newValue) -> {
+            // queries are evaluated on enter
+            if (queryToggle.isSelected()) return;
             if (newValue.isEmpty()) {
                 search.resetSearch();
                 controller.getTreeViewIsA().getSelectionModel().clearSelection();
                 controller.getTreeViewPartOf().getSelectionModel().clearSelection();
             }
             else {
-                search.performSearch(newValue, treeOfChoice(), useRegexToggle.isSelected());
-                if (search.getNumberOfHits() > 0) {
-                    nextButton.setDisable(false);
-                    firstButton.setDisable(false);
-                    allButton.setDisable(false);
-                } else {
-                    nextButton.setDisable(true);
-                    firstButton.setDisable(true);
-                    allButton.setDisable(true);
-                }
+                search.scheduleSearch(newValue, treeOfChoice(), searchMode());
+            }
+        });
+
+        // regex and fuzzy search exclude each other, switching the mode searches the current term again
+        useRegexToggle.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue) fuzzyToggle.setSelected(false);
+            if (!queryToggle.isSelected() && !searchBar.getText().isEmpty()) {
+                search.scheduleSearch(searchBar.getText(), treeOfChoice(), searchMode());
+            }
+        });
+        fuzzyToggle.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue) useRegexToggle.setSelected(false);
+            if (!queryToggle.isSelected() && !searchBar.getText().isEmpty()) {
+                search.scheduleSearch(searchBar.getText(), treeOfChoice(), searchMode());
             }
         });
 
+        // the results are published asynchronously
+        search.getSearchResults().addListener((ListChangeListener<ConceptNode>) change -> {
+            boolean noHits = search.getNumberOfHits() == 0;
+            nextButton.setDisable(noHits);
+            firstButton.setDisable(noHits);
+            allButton.setDisable(noHits);
+        });
+
+        // filter mode: the searched tree only shows the hits and their ancestors
+        filterToggle.selectedProperty().addListener((observable, oldValue, newValue) ->
+                search.setFilterActive(newValue));
+
+        // query mode: enter selects the meshes of the query result, shortcut + enter shows them
+        queryToggle.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            search.resetSearch();
+            searchBar.setTooltip(null);
+        });
+        searchBar.addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+            if (!queryToggle.isSelected() || event.getCode() != KeyCode.ENTER) return;
+            applyQuery(searchBar, event.isShortcutDown());
+            event.consume();
+        });
+
         // setup of the AI search button
         AiApiService aiApiService = new AiApiService();
 
@@ -211,6 +267,60 @@ public class SelectionViewPresenter {
         ));
     }
 
+    /**
+     * Evaluates the query in the search bar (see {@link ConceptQuery}) and replaces the mesh selection with its
+     * result as one change, or shows the result. An invalid query is reported in the tooltip of the search bar.
+     *
+     * @param searchBar the search bar containing the query
+     * @param show true to show the resulting meshes instead of selecting them
+     */
+    private void applyQuery(TextField searchBar, boolean show) {
+        HumanBodyMeshes humanBody = registry.getVisualizationViewPresenter().getHumanBody();
+        CompactBitSet meshIndices;
+        try {
+            meshIndices = ConceptQuery.parse(searchBar.getText()).evaluate(queryEnvironment(humanBody));
+        } catch (IllegalArgumentException e) {
+            searchBar.setTooltip(new Tooltip(e.getMessage()));
+            AppLogger.getLogger().info(e.getMessage());
+            return;
+        }
+        searchBar.setTooltip(null);
+
+        ArrayList<MeshView> meshes = humanBody.getMeshesOf(meshIndices);
+        if (show) {
+            registry.getVisualizationViewPresenter().showMeshes(new HashSet<>(meshes));
+        } else {
+            registry.getCommandManager().executeCommand(
+                    new ReplaceSelectionCommand(humanBody.getSelectionModel(), meshes));
+        }
+    }
+
+    /**
+     * @return both trees and the mesh sets all, selected, hidden and shown for the evaluation of a query
+     */
+    private ConceptQuery.Environment queryEnvironment(HumanBodyMeshes humanBody) {
+        return new ConceptQuery.Environment()
+                .addTree("isA", TreeIndex.of(controller.getTreeViewIsA().getRoot().getValue()))
+                .addTree("partOf", TreeIndex.of(controller.getTreeViewPartOf().getRoot().getValue()))
+                .addSet("all", meshIndicesOf(humanBody.getMeshes()))
+                .addSet("selected", meshIndicesOf(humanBody.getSelectionModel().getListOfCurrentlySelectedItems()))
+                .addSet("hidden", meshIndicesOf(humanBody.getHiddenMeshes()))
+                .addSet("shown", meshIndicesOf(registry.getVisualizationViewPresenter().getShownMeshes()));
+    }
+
+    /**
+     * @return the mesh indices of the given meshes, nodes that are no meshes are skipped
+     */
+    private static CompactBitSet meshIndicesOf(List<? extends Node> meshes) {
+        CompactBitSet.Builder meshIndices = new CompactBitSet.Builder();
+        for (Node node : meshes) {
+            if (node instanceof MeshView mesh && HumanBodyMeshes.indexOf(mesh) >= 0) {
+                meshIndices.add(HumanBodyMeshes.indexOf(mesh));
+            }
+        }
+        return meshIndices.build();
+    }
+
     /**
      * Resets the AI button to its default state and shows a finisher label on the button with a fading animation.
      *
@@ -282,17 +392,25 @@ public class SelectionViewPresenter {
         return choiceBox.getValue().equals("part-of") ? partOfTree : isATree;
     }
 
+    /**
+     * @return how the search bar matches concept names, depending on the regex and fuzzy toggle buttons
+     */
+    private SearchMode searchMode() {
+        if (controller.getRegexToggleButton().isSelected()) return SearchMode.REGEX;
+        return controller.getFuzzyToggleButton().isSelected() ? SearchMode.FUZZY : SearchMode.PLAIN;
+    }
+
     /**
      * Encapsulates search state and functionality for TreeView items based on AnatomyNode names.
      * Maintains search results list and current index, and provides methods for performing and navigating search.
      */
     private class Search {
         /**
-         * Returns the current list of search result TreeItems.
+         * Returns the current list of search result nodes, in pre-order or, for a fuzzy search, ranked.
          *
-         * @return The ObservableList of search result TreeItems.
+         * @return The ObservableList of search result nodes.
          */
-        public ObservableList<TreeItem<ConceptNode>> getSearchResults() {
+        public ObservableList<ConceptNode> getSearchResults() {
             return searchResults;
         }
 
@@ -325,57 +443,206 @@ public class SelectionViewPresenter {
 
         /**
          * Resets the search by clearing all results and resetting the search index.
+         * A filtered TreeView shows all nodes again.
          */
         public void resetSearch() {
+            debounce.stop();
+            searchService.cancel();
             currentSearchIndex.set(-1);
             searchResults.clear();
+            hitIndices = new int[0];
+            lastTerm = null;
+            updateFilter();
+        }
+
+        /**
+         * Switches the filter mode, in which the searched TreeView only shows the hits and their ancestors.
+         *
+         * @param active true to filter the TreeView by the current hits
+         */
+        public void setFilterActive(boolean active) {
+            filterActive = active;
+            updateFilter();
         }
 
         /**
-         * Executes a search within the provided TreeView for nodes whose names contain the search term.
-         * Updates the search results and focuses on the first match if found.
+         * Schedules a search within the tree of the provided TreeView for nodes whose names contain the search term.
+         * The search starts once no further term was scheduled for {@link #SEARCH_DELAY} and runs off the FX thread;
+         * scheduling a new term cancels the pending or running search. Only the result of the latest term is
+         * published, see {@link #publish(SearchResult)}.
          *
          * @param searchTerm The search term to look for in node names.
          * @param treeView The TreeView to search within.
+         * @param mode how the search term is matched
          */
-        public void performSearch(String searchTerm, TreeView<ConceptNode> treeView, boolean useRegex) {
+        public void scheduleSearch(String searchTerm, TreeView<ConceptNode> treeView, SearchMode mode) {
             if (treeView == null || searchTerm.isEmpty()) return;
 
-            TreeItem<ConceptNode> root = treeView.getRoot();
+            SearchRequest request = new SearchRequest(searchTerm, treeView, treeView.getRoot().getValue(), mode,
+                    System.nanoTime());
 
-            // reset search
-            searchResults.clear();
-            currentSearchIndex.set(-1);
+            debounce.setOnFinished(e -> {
+                if (searchService.isRunning()) supersededSearches++;
+                searchService.setRequest(request);
+                searchService.restart();
+            });
+            debounce.playFromStart();
+        }
 
-            // collect Hits by either using Regex or direct (case insensitiv) matching
-            if (useRegex) {
+        /**
+         * Executes a search on the ConceptNode model, TreeItems are only created for the hit that gets focused.
+         * The hits of recent searches in the tree are cached ({@link SearchCache}). A plain search term is looked up
+         * in the trigram index of the tree's names ({@link NameIndex}), a term that extends a cached one only matches
+         * the cached hits, so only those are tested. A regular expression only runs on the names containing its
+         * required literals and is aborted after {@link #REGEX_TIME_LIMIT_NANOS}, see {@link RegexSearch}. A fuzzy
+         * search tolerates typos and ranks its hits by their edit distance and depth within
+         * {@link #FUZZY_TIME_LIMIT_NANOS}, see {@link FuzzyNameIndex}.
+         * Runs off the FX thread and stops early once the task is cancelled.
+         *
+         * @param request the search to execute
+         * @param cancelled tells whether the search was superseded
+         * @return the hits in pre-order (ranked for a fuzzy search), null if the regular expression is invalid or too
+         * slow, or the search was cancelled
+         */
+        private static int[] findHits(SearchRequest request, BooleanSupplier cancelled) {
+            TreeIndex treeIndex = TreeIndex.of(request.root());
+            SearchCache cache = SearchCache.of(treeIndex);
+            int[] cached = cache.get(request.mode(), request.term());
+            if (cached != null) return cached;
+
+            // collect Hits by either using Regex, approximate or direct (case insensitiv) matching
+            if (request.mode() == SearchMode.REGEX) {
+                Pattern pattern;
                 try {
-                    Pattern pattern = Pattern.compile(searchTerm);
-                    TreeUtils.preOrderTreeViewTraversal(root, item -> {
-                        Matcher matcher = pattern.matcher(item.getValue().getName());
-                        if (matcher.find()) {
-                            searchResults.add(item);
-                        }
-                    });
+                    pattern = Pattern.compile(request.term());
 
                 } catch (PatternSyntaxException e) {
-                    return;
+                    return null;
+                }
+                try {
+                    int[] hits = RegexSearch.find(treeIndex, pattern, REGEX_TIME_LIMIT_NANOS, cancelled);
+                    cache.put(SearchMode.REGEX, request.term(), hits);
+                    return hits;
+                } catch (RegexSearch.TimeLimitException e) {
+                    AppLogger.getLogger().warning(e.getMessage() + ": " + request.term());
+                    return null;
+                } catch (CancellationException e) {
+                    return null;
+                }
+            }
+            if (request.mode() == SearchMode.FUZZY) {
+                try {
+                    FuzzyNameIndex.Matches matches = FuzzyNameIndex.of(treeIndex)
+                            .find(request.term(), FUZZY_TIME_LIMIT_NANOS, cancelled);
+                    if (matches.complete()) {
+                        cache.put(SearchMode.FUZZY, request.term(), matches.nodes());
+                    } else {
+                        AppLogger.getLogger().info("Fuzzy search hit its time limit, not all words were searched: "
+                                + request.term());
+                    }
+                    return matches.nodes();
+                } catch (CancellationException e) {
+                    return null;
                 }
+            }
+
+            NameIndex nameIndex = NameIndex.of(treeIndex);
+            String lowerCaseTerm = request.term().toLowerCase();
 
+            // refining a plain search term: the new hits are a subset of the hits of a contained term
+            int[] candidates = cache.candidatesFor(lowerCaseTerm);
+            int[] hits;
+            if (candidates == null) {
+                hits = nameIndex.find(request.term());
             } else {
-                TreeUtils.preOrderTreeViewTraversal(root, item -> {
-                    if (item.getValue().getName().toLowerCase().contains(searchTerm.toLowerCase())) {
-                        searchResults.add(item);
-                    }
-                });
+                hits = matching(candidates.length, cancelled,
+                        i -> nameIndex.lowerCaseName(candidates[i]).contains(lowerCaseTerm));
+                if (hits == null) return null;
+                for (int i = 0; i < hits.length; i++) hits[i] = candidates[hits[i]];
+            }
+            cache.put(SearchMode.PLAIN, request.term(), hits);
+            return hits;
+        }
+
+        /**
+         * Publishes the result of the latest search on the FX thread: updates the search results and the filter and
+         * focuses on the first match if found. Logs the latency of the search.
+         *
+         * @param result the result of the latest search
+         */
+        private void publish(SearchResult result) {
+            SearchRequest request = result.request();
+            currentSearchIndex.set(-1);
+
+            AppLogger.getLogger().fine(String.format(Locale.ROOT,
+                    "Search '%s': %d hits, %.1f ms waiting, %.1f ms searching, %.1f ms until shown, %d superseded",
+                    request.term(), result.hits() == null ? 0 : result.hits().length,
+                    (result.startedNanos() - request.scheduledNanos()) / 1e6,
+                    (result.finishedNanos() - result.startedNanos()) / 1e6,
+                    (System.nanoTime() - request.scheduledNanos()) / 1e6, supersededSearches));
+            supersededSearches = 0;
+
+            if (result.hits() == null) {
+                searchResults.clear();
+                hitIndices = new int[0];
+                lastTerm = null;
+                return;
             }
 
+            TreeIndex treeIndex = TreeIndex.of(request.root());
+            hitIndices = result.hits();
+            lastTerm = request.term();
+            lastTreeView = request.treeView();
+
+            List<ConceptNode> hitNodes = new ArrayList<>(hitIndices.length);
+            for (int hit : hitIndices) hitNodes.add(treeIndex.node(hit));
+            searchResults.setAll(hitNodes);
 
+            updateFilter();
 
             if (!searchResults.isEmpty()) {
                 currentSearchIndex.set(0);
-                selectAndFocus(treeView, searchResults.get(currentSearchIndex.get()));
+                selectAndFocus(request.treeView(), searchResults.get(currentSearchIndex.get()));
+            }
+        }
+
+        /**
+         * @param count the number of candidates
+         * @param cancelled checked every few candidates
+         * @param matches tests a candidate by its position
+         * @return the ascending positions of the matching candidates, null if cancelled
+         */
+        private static int[] matching(int count, BooleanSupplier cancelled, IntPredicate matches) {
+            int[] hits = new int[count];
+            int hitCount = 0;
+            for (int i = 0; i < count; i++) {
+                if ((i & 0xFF) == 0 && cancelled.getAsBoolean()) return null;
+                if (matches.test(i)) hits[hitCount++] = i;
+            }
+            return Arrays.copyOf(hits, hitCount);
+        }
+
+        /**
+         * Filters the last searched TreeView by the current hits if the filter mode is active,
+         * and shows all nodes of a previously filtered TreeView otherwise.
+         */
+        private void updateFilter() {
+            TreeView<ConceptNode> target = filterActive && lastTerm != null ? lastTreeView : null;
+            if (filteredTreeView != null && filteredTreeView != target) applyFilter(filteredTreeView, null);
+            if (target != null) {
+                applyFilter(target, TreeIndex.of(target.getRoot().getValue()).withAncestors(hitIndices));
             }
+            filteredTreeView = target;
+        }
+
+        /**
+         * Sets the filter of the TreeView in one batch, see {@link ConceptTreeItem#setFilter(CompactBitSet)}.
+         * Hidden items lose their TreeView selection, which is not passed on to the meshes.
+         */
+        private void applyFilter(TreeView<ConceptNode> treeView, CompactBitSet visible) {
+            if (!(treeView.getRoot() instanceof ConceptTreeItem root)) return;
+            registry.getSelectionBinder().runWithoutSync(treeView,
+                    () -> TreeUtils.updateInBatch(treeView, root, () -> root.setFilter(visible)));
         }
 
         /**
@@ -403,33 +670,111 @@ public class SelectionViewPresenter {
 
         /**
          * Selects all search results in the TreeView and scrolls to the first result.
+         * This creates the TreeItems on the paths to all hits.
          *
          * @param treeView The TreeView where the search results are displayed.
          */
         public void selectAllResults(TreeView<ConceptNode> treeView) {
             if (searchResults.isEmpty()) return;
 
-            registry.getSelectionBinder().selectItems(searchResults, treeView);
+            List<TreeItem<ConceptNode>> items = new ArrayList<>(searchResults.size());
+            for (ConceptNode hit : searchResults) {
+                TreeItem<ConceptNode> item = itemOf(treeView, hit);
+                if (item != null) items.add(item);
+            }
+            if (items.isEmpty()) return;
 
-            treeView.scrollTo(treeView.getRow(searchResults.getFirst()));
+            registry.getSelectionBinder().selectItems(items, treeView);
+
+            // selecting revealed the items, unless the filter hides the first one
+            int firstRow = treeView.getRow(items.getFirst());
+            if (firstRow >= 0) treeView.scrollTo(firstRow);
         }
 
         /**
-         * Selects the provided TreeItem in the TreeView and scrolls it into view.
+         * Selects the TreeItem of the provided node in the TreeView and scrolls it into view.
          *
-         * @param treeView the TreeView containing the item
-         * @param item the TreeItem to select and focus
+         * @param treeView the TreeView containing the node
+         * @param node the node to select and focus
          */
-        private void selectAndFocus(TreeView<ConceptNode> treeView, TreeItem<ConceptNode> item) {
+        private void selectAndFocus(TreeView<ConceptNode> treeView, ConceptNode node) {
+            TreeItem<ConceptNode> item = itemOf(treeView, node);
+            if (item == null) return;
             treeView.getSelectionModel().clearSelection();
             treeView.getSelectionModel().select(item);
-            treeView.scrollTo(treeView.getRow(item));
+            int row = treeView.getRow(item);
+            if (row >= 0) treeView.scrollTo(row);
         }
 
-        private final ObservableList<TreeItem<ConceptNode>> searchResults =
+        /**
+         * @return the TreeItem of the node, created on the path from the root if necessary,
+         *         null if the node is not part of the tree of the TreeView
+         */
+        private TreeItem<ConceptNode> itemOf(TreeView<ConceptNode> treeView, ConceptNode node) {
+            int index = TreeIndex.of(treeView.getRoot().getValue()).indexOf(node);
+            return index < 0 ? null : ConceptTreeItem.materialize(treeView.getRoot(), index);
+        }
+
+        private final ObservableList<ConceptNode> searchResults =
                 javafx.collections.FXCollections.observableArrayList();
 
         private final IntegerProperty currentSearchIndex = new SimpleIntegerProperty(-1);
+
+        // pre-order numbers of the hits of the last search, and what was searched
+        private int[] hitIndices = new int[0];
+        private String lastTerm = null;
+        private TreeView<ConceptNode> lastTreeView = null;
+
+        private boolean filterActive = false;
+        private TreeView<ConceptNode> filteredTreeView = null;
+
+        // waits for a pause in typing, then starts the search off the FX thread
+        private final PauseTransition debounce = new PauseTransition(SEARCH_DELAY);
+        private final SearchService searchService = new SearchService();
+        // number of searches cancelled since the last published one
+        private int supersededSearches = 0;
+
+        {
+            searchService.setOnSucceeded(e -> {
+                if (searchService.getValue() != null) publish(searchService.getValue());
+            });
+        }
+
+        /**
+         * What to search, captured on the FX thread when the search is scheduled.
+         */
+        private record SearchRequest(String term, TreeView<ConceptNode> treeView, ConceptNode root, SearchMode mode,
+                                     long scheduledNanos) {}
+
+        /**
+         * Hits of a search (null for an invalid or aborted regular expression) and when it ran.
+         */
+        private record SearchResult(SearchRequest request, int[] hits, long startedNanos, long finishedNanos) {}
+
+        /**
+         * Runs one search at a time, {@link #restart()} cancels the running one. Only the latest task reports
+         * its result to the service, so results of superseded searches are never published.
+         */
+        private static class SearchService extends Service<SearchResult> {
+            private SearchRequest request;
+
+            private void setRequest(SearchRequest request) {
+                this.request = request;
+            }
+
+            @Override
+            protected Task<SearchResult> createTask() {
+                SearchRequest taskRequest = request;
+                return new Task<>() {
+                    @Override
+                    protected SearchResult call() {
+                        long started = System.nanoTime();
+                        int[] hits = findHits(taskRequest, this::isCancelled);
+                        return isCancelled() ? null : new SearchResult(taskRequest, hits, started, System.nanoTime());
+                    }
+                };
+            }
+        }
     }
 
     /**
@@ -439,55 +784,92 @@ public class SelectionViewPresenter {
      * @return an ArrayList of MeshView objects to be displayed.
      */
     public HashSet<Node> getSelectedConceptMeshes() {
+        HumanBodyMeshes humanBody = registry.getVisualizationViewPresenter().getHumanBody();
+        return new HashSet<>(humanBody.getMeshesOf(getSelectedConceptMeshIndices()));
+    }
+
+    /**
+     * Unites the precomputed subtree mesh sets of the currently selected AnatomyNode items
+     * in the last focused TreeView.
+     *
+     * @return the mesh indices of all selected concepts
+     */
+    public CompactBitSet getSelectedConceptMeshIndices() {
         ObservableList<TreeItem<ConceptNode>> selectedItems =
                 lastFocusedTreeView.getSelectionModel().getSelectedItems();
-        HashSet<Node> meshesToDraw = new HashSet<>();
-        // Collect meshes corresponding to the selected nodes in the TreeView
+        if (selectedItems.isEmpty()) return CompactBitSet.EMPTY;
+
+        TreeIndex treeIndex = TreeIndex.of(lastFocusedTreeView.getRoot().getValue());
+        CompactBitSet.Builder meshIndices = new CompactBitSet.Builder();
         for (TreeItem<ConceptNode> selectedItem : selectedItems) {
-            meshesToDraw.addAll(registry.getVisualizationViewPresenter().getHumanBody().getMeshesOfFilesIDs(selectedItem.getValue().getFileIDs()));
+            int index = treeIndex.indexOf(selectedItem.getValue());
+            if (index >= 0) meshIndices.addAll(treeIndex.subtreeMeshes(index));
         }
-        return meshesToDraw;
+        return meshIndices.build();
     }
 
     /**
      * Expands all nodes in the 'is-a' TreeView.
      */
     public void expandIsATree() {
-        TreeUtils.expandAllBelowGivenNode(controller.getTreeViewIsA().getRoot());
+        expandInBatch(controller.getTreeViewIsA(), controller.getTreeViewIsA().getRoot(), Integer.MAX_VALUE);
     }
 
     /**
      * Collapses all nodes in the 'is-a' TreeView up to the root.
      */
     public void collapseIsATree() {
-        TreeUtils.collapseAllNodesUptToGivenNode(controller.getTreeViewIsA().getRoot());
+        collapseInBatch(controller.getTreeViewIsA(), controller.getTreeViewIsA().getRoot());
     }
 
     /**
      * Expands all nodes in the 'part-of' TreeView.
      */
     public void expandPartOfTree() {
-        TreeUtils.expandAllBelowGivenNode(controller.getTreeViewPartOf().getRoot());
+        expandInBatch(controller.getTreeViewPartOf(), controller.getTreeViewPartOf().getRoot(), Integer.MAX_VALUE);
     }
 
     /**
      * Collapses all nodes in the 'part-of' TreeView up to the root.
      */
     public void collapsePartOfTree() {
-        TreeUtils.collapseAllNodesUptToGivenNode(controller.getTreeViewPartOf().getRoot());
+        collapseInBatch(controller.getTreeViewPartOf(), controller.getTreeViewPartOf().getRoot());
     }
 
     /**
      * Expands all nodes starting at the selected node.
      */
     public void expandAtSelectedNode() {
-        TreeUtils.expandAllBelowGivenNode(selectedItem());
+        expandAtSelectedNode(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Expands the nodes starting at the selected node down to the given number of levels.
+     *
+     * @param levels number of levels below the selected node that become visible
+     */
+    public void expandAtSelectedNode(int levels) {
+        expandInBatch(lastFocusedTreeView, selectedItem(), levels);
     }
 
     /**
      * Collapses all nodes up to the selected node.
      */
     public void collapseAtSelectedNode() {
-        TreeUtils.collapseAllNodesUptToGivenNode(selectedItem());
+        collapseInBatch(lastFocusedTreeView, selectedItem());
+    }
+
+    /**
+     * Expands in one batch, the temporary selection changes of the batch are not passed on to the meshes.
+     */
+    private void expandInBatch(TreeView<ConceptNode> treeView, TreeItem<ConceptNode> item, int levels) {
+        registry.getSelectionBinder().runWithoutSync(treeView, () -> TreeUtils.expandInBatch(treeView, item, levels));
+    }
+
+    /**
+     * Collapses in one batch, the temporary selection changes of the batch are not passed on to the meshes.
+     */
+    private void collapseInBatch(TreeView<ConceptNode> treeView, TreeItem<ConceptNode> item) {
+        registry.getSelectionBinder().runWithoutSync(treeView, () -> TreeUtils.collapseInBatch(treeView, item));
     }
 }
@@ -4,11 +4,15 @@ import explorer.apptools.AppLogger;
 import explorer.model.treetools.ConceptNode;
 import explorer.apptools.AppConfig;
 import explorer.model.IO;
+import explorer.model.MeshConceptIndex;
+import explorer.model.treetools.FuzzyNameIndex;
+import explorer.model.treetools.TreeIndex;
 import explorer.window.GuiRegistry;
 import explorer.window.command.Command;
 import explorer.window.command.CommandManager;
 import explorer.window.command.commands.*;
 import explorer.selection.MeshSelectionManager;
+import explorer.selection.SelectedPartsModel;
 import explorer.selection.SelectionBinder;
 import explorer.window.controller.VisualizationViewController;
 import explorer.window.vistools.*;
@@ -33,6 +37,7 @@ import javafx.scene.transform.Transform;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -413,11 +418,21 @@ public class VisualizationViewPresenter {
         String finalWavefrontPath = wavefrontPath.get();
         AppLogger.getLogger().info("Loading .obj files from: " + AppConfig.loadLastPath());
 
-        Task<Void> loadTask = new Task<>() {
+        // the trees are set up already, the concept index over both of them is built off the FX thread as well
+        TreeView<ConceptNode> isATreeView = registry.getSelectionViewController().getTreeViewIsA();
+        TreeView<ConceptNode> partOfTreeView = registry.getSelectionViewController().getTreeViewPartOf();
+        ConceptNode isARoot = isATreeView.getRoot().getValue();
+        ConceptNode partOfRoot = partOfTreeView.getRoot().getValue();
+
+        Task<MeshConceptIndex> loadTask = new Task<>() {
             @Override
-            protected Void call() {
+            protected MeshConceptIndex call() {
                 humanBodyMeshes.loadMeshes(finalWavefrontPath, this::updateProgress);
-                return null;
+                // prebuild the name search indices (the fuzzy index builds on the trigram index), which are built on
+                // the first search otherwise
+                FuzzyNameIndex.of(TreeIndex.of(isARoot));
+                FuzzyNameIndex.of(TreeIndex.of(partOfRoot));
+                return MeshConceptIndex.build(List.of(TreeIndex.of(isARoot), TreeIndex.of(partOfRoot)));
             }
 
             @Override
@@ -431,11 +446,10 @@ public class VisualizationViewPresenter {
                 resetView(null); // initial reset should not used as Command
 
                 // bind the TreeViews to the MeshSelection
-                TreeView<ConceptNode> isATreeView = registry.getSelectionViewController().getTreeViewIsA();
-                TreeView<ConceptNode> partOfTreeView = registry.getSelectionViewController().getTreeViewPartOf();
-                ListView<Label> listView = registry.getSelectionViewController().getSelectionListView();
+                ListView<SelectedPartsModel.Part> listView = registry.getSelectionViewController().getSelectionListView();
                 // actual binding
                 SelectionBinder binder = registry.getSelectionBinder();
+                binder.setMeshConceptIndex(getValue());
                 binder.bindTreeView(isATreeView);
                 binder.bindTreeView(partOfTreeView);
                 binder.bindListView(listView, controller.getSelectionColorPicker());
@@ -483,14 +497,8 @@ public class VisualizationViewPresenter {
     private void setupShowConceptButton(CommandManager commandManager) {
 
         // Main button action: Show selected meshes and clear running animations
-        controller.getShowConceptButton().setOnAction(e -> {
-            Set<Node> meshesToShow = registry.getSelectionViewPresenter().getSelectedConceptMeshes();
-            if (!meshesToShow.isEmpty()) {
-                animationManager.clearAnimations();
-                commandManager.executeCommand(
-                        new ShowConceptCommand(meshesToShow, anatomyGroup, humanBodyMeshes, true));
-            }
-        });
+        controller.getShowConceptButton().setOnAction(e ->
+                showMeshes(registry.getSelectionViewPresenter().getSelectedConceptMeshes()));
 
         // Add selected meshes to the currently displayed meshes without clearing the view
         controller.getAddToCurrentShowMenuItem().setOnAction(event -> {
@@ -539,6 +547,7 @@ public class VisualizationViewPresenter {
         MeshSelectionManager meshSelectionModel = humanBodyMeshes.getSelectionModel();
 
         // Update mesh materials when selection changes
+        // a batched change can contain additions and removals, both are handled
         humanBodyMeshes.getSelectionModel().addListener(change -> {
             while (change.next()) {
                 if (change.wasAdded()) {
@@ -551,7 +560,8 @@ public class VisualizationViewPresenter {
                             meshView.setMaterial(selectedMaterial);
                         });
                     }
-                } else if (change.wasRemoved()) {
+                }
+                if (change.wasRemoved()) {
                     for (MeshView meshView : change.getRemoved()) {
                         Platform.runLater(() -> {
                             meshView.setDrawMode(line.isSelected() ? DrawMode.LINE : DrawMode.FILL);
@@ -730,6 +740,26 @@ public class VisualizationViewPresenter {
         }
     }
 
+    /**
+     * Shows exactly the given meshes with a ShowConceptCommand and clears running animations.
+     * Nothing happens if no mesh is given.
+     *
+     * @param meshesToShow the meshes to show
+     */
+    public void showMeshes(Set<Node> meshesToShow) {
+        if (meshesToShow.isEmpty()) return;
+        animationManager.clearAnimations();
+        registry.getCommandManager().executeCommand(
+                new ShowConceptCommand(meshesToShow, anatomyGroup, humanBodyMeshes, true));
+    }
+
+    /**
+     * @return unmodifiable list of the meshes currently shown in the visualization
+     */
+    public List<Node> getShownMeshes() {
+        return Collections.unmodifiableList(anatomyGroup.getChildren());
+    }
+
     /**
      * Returns the current HumanBody model containing meshes and selection state.
      *
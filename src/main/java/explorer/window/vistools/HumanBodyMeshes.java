@@ -1,6 +1,8 @@
 package explorer.window.vistools;
 
 import explorer.apptools.AppLogger;
+import explorer.model.CompactBitSet;
+import explorer.model.SymbolTable;
 import explorer.selection.MeshSelectionManager;
 import javafx.application.Platform;
 import javafx.scene.paint.Color;
@@ -10,10 +12,10 @@ import javafx.scene.shape.TriangleMesh;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
+import java.util.stream.IntStream;
 
 /**
  * Manages loading, mapping, and visibility of 3D meshes representing human anatomy.
@@ -25,8 +27,8 @@ public class HumanBodyMeshes {
     // collect all meshes in a list and append them with addAll after all Meshes are parsed
     private final List<MeshView> collectedMeshes = Collections.synchronizedList(new ArrayList<>());
 
-    // connects fileID to a MeshView instance loaded from that fileID
-    private final ConcurrentHashMap<String, MeshView> fileIdToMeshMap = new ConcurrentHashMap<>();
+    // connects the fileID index (see SymbolTable.FILE_IDS) to the MeshView instance loaded from that fileID
+    private volatile MeshView[] meshesByFileIndex = new MeshView[0];
 
     // meshSelection is interpreted as a SelectionModel for a humanBody instance
     private final MeshSelectionManager meshSelectionManager = new MeshSelectionManager(collectedMeshes);
@@ -48,10 +50,14 @@ public class HumanBodyMeshes {
     }
 
     /**
-     * @return the mapping from file IDs to their corresponding MeshView objects.
+     * Retrieves the MeshView associated with the given file ID index.
+     *
+     * @param fileIndex the index of the file ID in {@link SymbolTable#FILE_IDS}
+     * @return the MeshView corresponding to the index, or null if no mesh was loaded for it
      */
-    public ConcurrentHashMap<String, MeshView> getFileIdToMeshMap() {
-        return fileIdToMeshMap;
+    public MeshView getMeshOfFileIndex(int fileIndex) {
+        MeshView[] meshes = meshesByFileIndex;
+        return fileIndex >= 0 && fileIndex < meshes.length ? meshes[fileIndex] : null;
     }
 
     /**
@@ -61,7 +67,17 @@ public class HumanBodyMeshes {
      * @return the MeshView corresponding to the file ID, or null if not found
      */
     public MeshView getMeshOfFileID(String fileId) {
-        return fileIdToMeshMap.get(fileId);
+        return getMeshOfFileIndex(SymbolTable.FILE_IDS.indexOf(fileId));
+    }
+
+    /**
+     * Returns the index of the given mesh, i.e. the index of its file ID in {@link SymbolTable#FILE_IDS}.
+     *
+     * @param meshView the mesh whose index is requested
+     * @return the index of the mesh or -1 if it is unknown
+     */
+    public static int indexOf(MeshView meshView) {
+        return meshView == null ? -1 : SymbolTable.FILE_IDS.indexOf(meshView.getId());
     }
 
     /**
@@ -78,6 +94,38 @@ public class HumanBodyMeshes {
         return meshes;
     }
 
+    /**
+     * Retrieves the MeshView objects corresponding to the provided file ID indices.
+     * Indices without a loaded mesh are skipped.
+     *
+     * @param fileIndices the file ID indices
+     * @return an ArrayList of MeshView objects for the specified indices
+     */
+    public ArrayList<MeshView> getMeshesOfFileIndices(int[] fileIndices) {
+        ArrayList<MeshView> meshes = new ArrayList<>(fileIndices.length);
+        for (int fileIndex : fileIndices) {
+            MeshView mesh = getMeshOfFileIndex(fileIndex);
+            if (mesh != null) meshes.add(mesh);
+        }
+        return meshes;
+    }
+
+    /**
+     * Retrieves the MeshView objects of all mesh indices in the given set, in ascending index order.
+     * Indices without a loaded mesh are skipped.
+     *
+     * @param meshIndices the set of file ID indices
+     * @return an ArrayList of MeshView objects for the indices in the set
+     */
+    public ArrayList<MeshView> getMeshesOf(CompactBitSet meshIndices) {
+        ArrayList<MeshView> meshes = new ArrayList<>(meshIndices.cardinality());
+        meshIndices.forEach(fileIndex -> {
+            MeshView mesh = getMeshOfFileIndex(fileIndex);
+            if (mesh != null) meshes.add(mesh);
+        });
+        return meshes;
+    }
+
     /**
      * @return the MeshSelectionManager that manages the selection state of MeshView objects.
      */
@@ -116,10 +164,17 @@ public class HumanBodyMeshes {
         AtomicInteger counter = new AtomicInteger();
         int total = objFiles.length;
 
+        // intern all fileIDs up front, such that the parallel loading can write into a plain array
+        int[] fileIndices = new int[total];
+        for (int i = 0; i < total; i++) {
+            fileIndices[i] = SymbolTable.FILE_IDS.intern(objFiles[i].getName().replace(".obj", ""));
+        }
+        MeshView[] meshes = Arrays.copyOf(meshesByFileIndex, SymbolTable.FILE_IDS.size());
+
         // Parallel loading of meshes to speed up initial load up
-        Arrays.stream(objFiles).parallel().forEach(objFile -> {
-            String fileName = objFile.getName();
-            String id = fileName.replace(".obj", "");
+        IntStream.range(0, total).parallel().forEach(i -> {
+            File objFile = objFiles[i];
+            String id = SymbolTable.FILE_IDS.symbol(fileIndices[i]);
 
             TriangleMesh mesh;
             try {
@@ -132,15 +187,15 @@ public class HumanBodyMeshes {
             MeshView meshView = new MeshView(mesh);
             meshView.setMaterial(SHARED_DEFAULT_MATERIAL);
             meshView.setId(id);
-            // this Set will hold all names of AnatomyNodes that are associated with that Mesh
-            meshView.setUserData(new HashSet<String>());
 
-            fileIdToMeshMap.put(id, meshView);
+            meshes[fileIndices[i]] = meshView;
             collectedMeshes.add(meshView);
 
             if (progressCallback != null) {
                 Platform.runLater(() -> progressCallback.accept(counter.incrementAndGet(), total));
             }
         });
+
+        meshesByFileIndex = meshes;
     }
 }